@@ -0,0 +1,58 @@
+package com.example.lab10.benchmark;
+
+import com.example.lab10.security.JwtUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issue and verification. verifyCached hits the verified-token LRU; verifyUncached
+ * cycles through more tokens than the LRU holds, so every call pays for HMAC and parsing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtUtilsBenchmark {
+
+    private static final int DISTINCT_TOKENS = 4096;
+
+    private JwtUtils jwtUtils;
+    private String token;
+    private String[] tokens;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        jwtUtils = new JwtUtils();
+        token = jwtUtils.generateJwtToken("bench@example.com", List.of("ROLE_USER"));
+        tokens = new String[DISTINCT_TOKENS];
+        for (int i = 0; i < DISTINCT_TOKENS; i++) {
+            tokens[i] = jwtUtils.generateJwtToken("user" + i + "@example.com", List.of("ROLE_USER"));
+        }
+    }
+
+    @Benchmark
+    public String generate() {
+        return jwtUtils.generateJwtToken("bench@example.com", List.of("ROLE_USER"));
+    }
+
+    @Benchmark
+    public Optional<JwtUtils.VerifiedJwt> verifyCached() {
+        return jwtUtils.verify(token);
+    }
+
+    @Benchmark
+    public Optional<JwtUtils.VerifiedJwt> verifyUncached() {
+        next = (next + 1) & (DISTINCT_TOKENS - 1);
+        return jwtUtils.verify(tokens[next]);
+    }
+
+    @Benchmark
+    public void validateAndParse(Blackhole blackhole) {
+        blackhole.consume(jwtUtils.validateJwtToken(token));
+        blackhole.consume(jwtUtils.getUserNameFromJwtToken(token));
+    }
+}
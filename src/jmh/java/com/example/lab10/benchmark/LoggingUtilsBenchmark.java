@@ -0,0 +1,51 @@
+package com.example.lab10.benchmark;
+
+import com.example.lab10.util.LoggingUtils;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Run with {@code -prof gc} to compare gc.alloc.rate.norm (bytes per call). The log* benchmarks use
+ * TRACE, which is off, to show what masking costs on a line that is never written.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LoggingUtilsBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoggingUtilsBenchmark.class);
+
+    @Param({"john.doe@example.com", "a@b.co", "not-an-email"})
+    public String email;
+
+    private final StringBuilder buffer = new StringBuilder(64);
+
+    @Benchmark
+    public String maskEmail() {
+        return LoggingUtils.maskEmail(email);
+    }
+
+    @Benchmark
+    public String maskUsername() {
+        return LoggingUtils.maskUsername(email);
+    }
+
+    @Benchmark
+    public int appendMaskedEmail() {
+        buffer.setLength(0);
+        return LoggingUtils.appendMaskedEmail(buffer, email).length();
+    }
+
+    @Benchmark
+    public void logDisabledEager() {
+        logger.trace("Lookup for user: {}", LoggingUtils.maskEmail(email));
+    }
+
+    @Benchmark
+    public void logDisabledLazy() {
+        logger.trace("Lookup for user: {}", LoggingUtils.maskedEmail(email));
+    }
+}
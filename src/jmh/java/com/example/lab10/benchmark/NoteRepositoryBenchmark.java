@@ -0,0 +1,69 @@
+package com.example.lab10.benchmark;
+
+import com.example.lab10.model.Note;
+import com.example.lab10.repository.NoteRepository;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.support.JdbcTransactionManager;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Row mapping cost of the note read paths against in-memory H2 (migrated with Flyway, so the
+ * schema and indexes match production). Each call maps pageSize rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NoteRepositoryBenchmark {
+
+    @Param({"20", "100"})
+    public int pageSize;
+
+    private SingleConnectionDataSource dataSource;
+    private NoteRepository noteRepository;
+    private long userId;
+
+    @Setup
+    public void setUp() {
+        // One reused connection, as a pool would provide, so connect cost is not part of the score
+        dataSource = new SingleConnectionDataSource(
+                "jdbc:h2:mem:jmh-notes;DB_CLOSE_DELAY=-1;LAZY_QUERY_EXECUTION=TRUE", "sa", "", true);
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("MERGE INTO users (id, username, email, password) KEY (id) "
+                + "VALUES (1, 'bench', 'bench@example.com', 'x')");
+        jdbcTemplate.update("DELETE FROM notes");
+        // A user whose note count equals the page size, so findByUserId and streaming map the same rows
+        jdbcTemplate.update("INSERT INTO notes (title, content, created_at, user_id) "
+                + "SELECT 'Note ' || X, 'Content of benchmark note number ' || X, "
+                + "DATEADD('SECOND', X, TIMESTAMP '2024-01-01 00:00:00'), 1 FROM SYSTEM_RANGE(1, " + pageSize + ")");
+        noteRepository = new NoteRepository(jdbcTemplate, List.of(), new JdbcTransactionManager(dataSource));
+        userId = 1L;
+    }
+
+    @TearDown
+    public void tearDown() {
+        dataSource.destroy();
+    }
+
+    @Benchmark
+    public List<Note> findByUserId() {
+        return noteRepository.findByUserId(userId);
+    }
+
+    @Benchmark
+    public List<Note> findPageByUserId() {
+        return noteRepository.findPageByUserId(userId, null, pageSize);
+    }
+
+    @Benchmark
+    public long streamByUserId() {
+        long[] count = new long[1];
+        noteRepository.streamByUserId(userId, note -> count[0]++);
+        return count[0];
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.lab10.benchmark;
+
+import com.example.lab10.model.Note;
+import com.example.lab10.repository.NoteRepository;
+import com.example.lab10.search.NoteSearchIndex;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.support.JdbcTransactionManager;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Top-20 search over one user's 1M notes: the inverted index against the naive
+ * case-insensitive LIKE scan it replaces. Each note has a title, one of 10 "c" words
+ * (~100k notes per term) and ten of 5000 zero-padded "w" words (~2000 notes per term).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class NoteSearchBenchmark {
+
+    private static final int NOTES = 1_000_000;
+    private static final int LIMIT = 20;
+
+    @Param({"w0042", "c3"})
+    public String term;
+
+    private SingleConnectionDataSource dataSource;
+    private NoteRepository noteRepository;
+    private NoteSearchIndex index;
+    private String likePattern;
+
+    @Setup
+    public void setUp() {
+        dataSource = new SingleConnectionDataSource(
+                "jdbc:h2:mem:jmh-search;DB_CLOSE_DELAY=-1;LAZY_QUERY_EXECUTION=TRUE", "sa", "", true);
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("MERGE INTO users (id, username, email, password) KEY (id) "
+                + "VALUES (1, 'bench', 'bench@example.com', 'x')");
+        jdbcTemplate.update("DELETE FROM notes");
+        StringBuilder content = new StringBuilder("'c' || MOD(X, 10)");
+        for (int i = 1; i <= 10; i++) {
+            content.append(" || ' w' || LPAD(MOD(X * ").append(7919 * i).append(" + ").append(i)
+                    .append(", 5000), 4, '0')");
+        }
+        jdbcTemplate.update("INSERT INTO notes (title, content, created_at, user_id) "
+                + "SELECT 'Note ' || X, " + content + ", "
+                + "DATEADD('SECOND', X, TIMESTAMP '2024-01-01 00:00:00'), 1 FROM SYSTEM_RANGE(1, " + NOTES + ")");
+
+        index = new NoteSearchIndex();
+        noteRepository = new NoteRepository(jdbcTemplate, List.of(), new JdbcTransactionManager(dataSource));
+        noteRepository.streamAll(index::noteSaved);
+        likePattern = "%" + term + "%";
+    }
+
+    @TearDown
+    public void tearDown() {
+        dataSource.destroy();
+    }
+
+    @Benchmark
+    public List<NoteSearchIndex.Hit> invertedIndex() {
+        return index.search(1L, term, LIMIT);
+    }
+
+    @Benchmark
+    public List<Note> invertedIndexWithRows() {
+        List<NoteSearchIndex.Hit> hits = index.search(1L, term, LIMIT);
+        return noteRepository.findByIdsAndUserId(
+                hits.stream().map(NoteSearchIndex.Hit::noteId).toList(), 1L);
+    }
+
+    // Unranked, so it can stop at the first LIMIT matches; still scans the user's rows
+    @Benchmark
+    public List<Long> likeScan() {
+        return jdbcTemplate.queryForList("SELECT id FROM notes WHERE user_id = ? "
+                + "AND (LOWER(title) LIKE ? OR LOWER(content) LIKE ?) ORDER BY created_at DESC LIMIT " + LIMIT,
+                Long.class, 1L, likePattern, likePattern);
+    }
+}
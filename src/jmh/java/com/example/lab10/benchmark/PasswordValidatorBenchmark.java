@@ -0,0 +1,47 @@
+package com.example.lab10.benchmark;
+
+import com.example.lab10.validation.PasswordValidator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * The single-pass scanner against the regex it replaced, both recompiled per call (String.matches,
+ * the old code) and precompiled. The last two params are the worst cases: a long valid password and
+ * a long one that misses only the special character, so every lookahead scans to the end.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PasswordValidatorBenchmark {
+
+    private static final String REGEX = "^(?=.*[0-9])(?=.*[a-z])(?=.*[A-Z])(?=.*[@#$%^&+=!]).{8,}$";
+    private static final Pattern PATTERN = Pattern.compile(REGEX);
+
+    @Param({"Password1!", "password", "Aa1!Aa1!Aa1!Aa1!Aa1!Aa1!Aa1!Aa1!Aa1!Aa1!Aa1!Aa1!Aa1!Aa1!Aa1!Aa1!",
+            "Aa1Aa1Aa1Aa1Aa1Aa1Aa1Aa1Aa1Aa1Aa1Aa1Aa1Aa1Aa1Aa1Aa1Aa1Aa1Aa1Aa1Aa1Aa1Aa1"})
+    public String password;
+
+    private PasswordValidator validator;
+
+    @Setup
+    public void setUp() {
+        validator = new PasswordValidator();
+    }
+
+    @Benchmark
+    public boolean scanner() {
+        return validator.isValid(password, null);
+    }
+
+    @Benchmark
+    public boolean regexPrecompiled() {
+        return PATTERN.matcher(password).matches();
+    }
+
+    @Benchmark
+    public boolean regexStringMatches() {
+        return password.matches(REGEX);
+    }
+}
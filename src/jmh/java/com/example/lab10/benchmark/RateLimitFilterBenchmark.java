@@ -0,0 +1,70 @@
+package com.example.lab10.benchmark;
+
+import com.example.lab10.config.RateLimitProperties;
+import com.example.lab10.filter.RateLimitFilter;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * RateLimitFilter.doFilter with four threads. sameClient puts every thread on one bucket
+ * (worst case lock contention); distinctClients spreads them over the striped table.
+ * Limits are high enough that requests pass, so the allowed path is what gets measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(4)
+public class RateLimitFilterBenchmark {
+
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> {
+    };
+
+    private RateLimitFilter filter;
+
+    @Setup
+    public void setUp() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.getDefaultLimit().setCapacity(Integer.MAX_VALUE);
+        properties.getDefaultLimit().setRefillPerMinute(Integer.MAX_VALUE);
+        RateLimitProperties.Route login = new RateLimitProperties.Route();
+        login.setPattern("/api/auth/login");
+        login.setCapacity(Integer.MAX_VALUE);
+        login.setRefillPerMinute(Integer.MAX_VALUE);
+        properties.setRoutes(List.of(login));
+        filter = new RateLimitFilter(properties);
+    }
+
+    @State(Scope.Thread)
+    public static class ClientRequest {
+        private static final AtomicInteger CLIENTS = new AtomicInteger();
+
+        MockHttpServletRequest shared;
+        MockHttpServletRequest own;
+        MockHttpServletResponse response;
+
+        @Setup
+        public void setUp() {
+            shared = new MockHttpServletRequest("GET", "/api/notes");
+            shared.setRemoteAddr("10.0.0.1");
+            own = new MockHttpServletRequest("GET", "/api/notes");
+            own.setRemoteAddr("10.0.1." + CLIENTS.incrementAndGet());
+            response = new MockHttpServletResponse();
+        }
+    }
+
+    @Benchmark
+    public void sameClient(ClientRequest client) throws Exception {
+        filter.doFilter(client.shared, client.response, NO_OP_CHAIN);
+    }
+
+    @Benchmark
+    public void distinctClients(ClientRequest client) throws Exception {
+        filter.doFilter(client.own, client.response, NO_OP_CHAIN);
+    }
+}
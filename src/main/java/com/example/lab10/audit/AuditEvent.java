@@ -0,0 +1,25 @@
+package com.example.lab10.audit;
+
+/**
+ * One security audit record as captured on the request thread. Holds raw values only;
+ * masking and formatting happen later on the audit writer thread.
+ *
+ * @param principal the email or username involved, unmasked; may be null
+ * @param detail    short free-form context such as a failure reason or a path; may be null
+ */
+public record AuditEvent(long timestampMillis, Type type, String principal, String detail) {
+
+    public enum Type {
+        LOGIN_SUCCESS,
+        LOGIN_FAILURE,
+        ACCESS_DENIED,
+        USER_LOOKUP,
+        USER_LOOKUP_FAILED,
+        PASSWORD_REHASHED,
+        REGISTRATION_SUCCESS,
+        REGISTRATION_INVALID,
+        REGISTRATION_FAILED,
+        // Written by the pipeline itself to mark events lost while the queue was full
+        AUDIT_EVENTS_DROPPED
+    }
+}
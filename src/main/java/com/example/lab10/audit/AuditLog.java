@@ -0,0 +1,212 @@
+package com.example.lab10.audit;
+
+import com.example.lab10.util.LoggingUtils;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Security audit trail. {@link #record} only puts a small event into a bounded queue and never
+ * blocks; a single background thread masks, serializes (one JSON object per line) and writes the
+ * events to a size-rotated file. When the queue is full the event is dropped and counted, and the
+ * writer records the gap in the file, so a login storm can slow down auditing but never logins.
+ */
+@Component
+public class AuditLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditLog.class);
+
+    private static final int DRAIN_BATCH = 256;
+    private static final long POLL_INTERVAL_MS = 500;
+
+    private final boolean enabled;
+    private final BlockingQueue<AuditEvent> queue;
+    private final RotatingFileWriter fileWriter;
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder writeFailures = new LongAdder();
+
+    // Writer thread only
+    private final StringBuilder line = new StringBuilder(256);
+    private final List<AuditEvent> batch = new ArrayList<>(DRAIN_BATCH);
+    private long droppedReported;
+
+    public AuditLog(@Value("${audit.enabled:true}") boolean enabled,
+            @Value("${audit.file:logs/audit.log}") String file,
+            @Value("${audit.queue-capacity:8192}") int queueCapacity,
+            @Value("${audit.max-file-size-bytes:10485760}") long maxFileSizeBytes,
+            @Value("${audit.max-history:5}") int maxHistory) throws IOException {
+        this.enabled = enabled;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity); // Array-backed ring buffer, no per-offer node
+        this.fileWriter = enabled ? new RotatingFileWriter(Path.of(file), maxFileSizeBytes, maxHistory) : null;
+        this.writerThread = new Thread(this::drainLoop, "audit-writer");
+        this.writerThread.setDaemon(true);
+        if (enabled) {
+            writerThread.start();
+        }
+    }
+
+    /**
+     * Queues the event for writing; returns immediately whether or not there was room.
+     */
+    public void record(AuditEvent.Type type, String principal, String detail) {
+        if (!enabled) {
+            return;
+        }
+        if (queue.offer(new AuditEvent(System.currentTimeMillis(), type, principal, detail))) {
+            recorded.increment();
+        } else {
+            dropped.increment();
+        }
+    }
+
+    public void record(AuditEvent.Type type, String principal) {
+        record(type, principal, null);
+    }
+
+    private void drainLoop() {
+        while (running || !queue.isEmpty()) {
+            try {
+                AuditEvent first = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, DRAIN_BATCH - 1);
+                writeBatch();
+            } catch (InterruptedException e) {
+                running = false; // Finish what is queued, then exit
+            }
+        }
+        writeBatch();
+        try {
+            fileWriter.close();
+        } catch (IOException e) {
+            logger.error("Could not close audit log: {}", e.getMessage());
+        }
+    }
+
+    private void writeBatch() {
+        int done = 0;
+        try {
+            long droppedNow = dropped.sum();
+            if (droppedNow > droppedReported) {
+                write(new AuditEvent(System.currentTimeMillis(), AuditEvent.Type.AUDIT_EVENTS_DROPPED, null,
+                        String.valueOf(droppedNow - droppedReported)));
+                droppedReported = droppedNow;
+            }
+            for (AuditEvent event : batch) {
+                write(event);
+                done++;
+            }
+            fileWriter.flush();
+        } catch (IOException e) {
+            writeFailures.add(batch.size() - done);
+            logger.error("Could not write {} audit events: {}", batch.size() - done, e.getMessage());
+        } finally {
+            written.add(done);
+            batch.clear();
+        }
+    }
+
+    private void write(AuditEvent event) throws IOException {
+        line.setLength(0);
+        line.append("{\"ts\":\"");
+        DateTimeFormatter.ISO_INSTANT.formatTo(Instant.ofEpochMilli(event.timestampMillis()), line);
+        line.append("\",\"event\":\"").append(event.type().name()).append('"');
+        if (event.principal() != null) {
+            line.append(",\"user\":\"");
+            int start = line.length();
+            LoggingUtils.appendMaskedEmail(line, event.principal());
+            escapeFrom(start);
+            line.append('"');
+        }
+        if (event.detail() != null) {
+            line.append(",\"detail\":\"");
+            appendEscaped(event.detail());
+            line.append('"');
+        }
+        line.append('}');
+        fileWriter.writeLine(line);
+    }
+
+    // JSON string escaping that also turns non-ASCII into \\uXXXX, so every line is plain ASCII
+    private void appendEscaped(CharSequence value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                line.append('\\').append(c);
+            } else if (c < 0x20 || c > 0x7e) {
+                line.append("\\u");
+                for (int shift = 12; shift >= 0; shift -= 4) {
+                    line.append(Character.forDigit((c >> shift) & 0xf, 16));
+                }
+            } else {
+                line.append(c);
+            }
+        }
+    }
+
+    // Escapes, in place, what was appended to line since start. The masked part is short and
+    // almost always plain ASCII, so the common case is one scan and no copy
+    private void escapeFrom(int start) {
+        for (int i = start; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"' || c == '\\' || c < 0x20 || c > 0x7e) {
+                String raw = line.substring(start);
+                line.setLength(start);
+                appendEscaped(raw);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Lets the writer finish what is already queued, then closes the file.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        running = false;
+        writerThread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    public long recordedCount() {
+        return recorded.sum();
+    }
+
+    public long droppedCount() {
+        return dropped.sum();
+    }
+
+    public long writtenCount() {
+        return written.sum();
+    }
+
+    public long writeFailureCount() {
+        return writeFailures.sum();
+    }
+
+    public int queueDepth() {
+        return queue.size();
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.lab10.audit;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends lines to a file and rolls it over by size: audit.log becomes audit.log.1, audit.log.1
+ * becomes audit.log.2 and so on, keeping at most maxHistory old files. Not thread-safe; the
+ * audit writer thread is its only user.
+ */
+class RotatingFileWriter implements AutoCloseable {
+
+    private final Path file;
+    private final long maxFileSizeBytes;
+    private final int maxHistory;
+
+    private BufferedWriter writer;
+    private long size;
+
+    RotatingFileWriter(Path file, long maxFileSizeBytes, int maxHistory) throws IOException {
+        this.file = file;
+        this.maxFileSizeBytes = maxFileSizeBytes;
+        this.maxHistory = maxHistory;
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        open();
+    }
+
+    /**
+     * Writes the line plus a newline. Audit lines are ASCII after masking and escaping,
+     * so the character count is the byte count.
+     */
+    void writeLine(CharSequence line) throws IOException {
+        if (size > 0 && size + line.length() + 1 > maxFileSizeBytes) {
+            rotate();
+        }
+        writer.append(line).append('\n');
+        size += line.length() + 1;
+    }
+
+    void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private void open() throws IOException {
+        writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        size = Files.size(file);
+    }
+
+    private void rotate() throws IOException {
+        writer.close();
+        Files.deleteIfExists(rolled(maxHistory));
+        for (int i = maxHistory - 1; i >= 1; i--) {
+            if (Files.exists(rolled(i))) {
+                Files.move(rolled(i), rolled(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (maxHistory > 0) {
+            Files.move(file, rolled(1), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.delete(file);
+        }
+        open();
+    }
+
+    private Path rolled(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+}
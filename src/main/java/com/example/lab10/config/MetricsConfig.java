@@ -0,0 +1,149 @@
+package com.example.lab10.config;
+
+import com.example.lab10.audit.AuditLog;
+import com.example.lab10.filter.RateLimitFilter;
+import com.example.lab10.security.JwtUtils;
+import com.example.lab10.security.PasswordHashingExecutor;
+import com.example.lab10.security.PrincipalCache;
+import com.example.lab10.service.NoteCache;
+import com.example.lab10.service.NoteChangeFeed;
+import com.example.lab10.service.RefreshTokenPurgeService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes the counters the security and persistence components already keep as Micrometer
+ * meters. Meters read those counters at scrape time, so the hot paths only pay for a LongAdder.
+ * Method-level latencies (db.query, jwt.verify, auth.user.lookup, auth.refresh.rotation) come
+ * from {@code @Timed} on the methods themselves.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder jwtMetrics(JwtUtils jwtUtils) {
+        return registry -> {
+            FunctionCounter.builder("jwt.verify.outcomes", jwtUtils, JwtUtils::cacheHitCount)
+                    .tag("outcome", "cached")
+                    .description("Tokens accepted from the verified-token cache without an HMAC check")
+                    .register(registry);
+            FunctionCounter.builder("jwt.verify.outcomes", jwtUtils, JwtUtils::verifiedCount)
+                    .tag("outcome", "verified")
+                    .description("Tokens accepted after a full signature check")
+                    .register(registry);
+            FunctionCounter.builder("jwt.verify.outcomes", jwtUtils, JwtUtils::rejectedCount)
+                    .tag("outcome", "rejected")
+                    .description("Invalid, expired or malformed tokens")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder principalCacheMetrics(PrincipalCache principalCache) {
+        return registry -> {
+            FunctionCounter.builder("auth.principal.cache", principalCache, PrincipalCache::hitCount)
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("auth.principal.cache", principalCache, PrincipalCache::missCount)
+                    .tag("result", "miss")
+                    .register(registry);
+            FunctionCounter.builder("auth.principal.cache.evictions", principalCache, PrincipalCache::evictionCount)
+                    .register(registry);
+            Gauge.builder("auth.principal.cache.size", principalCache, PrincipalCache::size)
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder passwordHashingMetrics(PasswordHashingExecutor executor) {
+        return registry -> {
+            FunctionTimer.builder("password.hash", executor,
+                            PasswordHashingExecutor::hashCount, PasswordHashingExecutor::totalHashNanos,
+                            TimeUnit.NANOSECONDS)
+                    .description("BCrypt encode/matches time on the hashing pool")
+                    .register(registry);
+            FunctionTimer.builder("password.hash.queue.wait", executor,
+                            PasswordHashingExecutor::hashCount, PasswordHashingExecutor::totalQueueWaitNanos,
+                            TimeUnit.NANOSECONDS)
+                    .description("Time hashes spent queued before a pool thread picked them up")
+                    .register(registry);
+            Gauge.builder("password.hash.queue.wait.max", executor,
+                            e -> e.maxQueueWaitNanos() / (double) TimeUnit.SECONDS.toNanos(1))
+                    .baseUnit("seconds")
+                    .register(registry);
+            FunctionCounter.builder("password.hash.rejected", executor, PasswordHashingExecutor::rejectedCount)
+                    .description("Hashes refused with 503 because the pool was saturated")
+                    .register(registry);
+            Gauge.builder("password.hash.queue.depth", executor, PasswordHashingExecutor::queueDepth)
+                    .register(registry);
+            Gauge.builder("password.hash.active", executor, PasswordHashingExecutor::activeCount)
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder rateLimitMetrics(RateLimitFilter rateLimitFilter) {
+        return registry -> rateLimitFilter.rejectionCounts().keySet().forEach(route ->
+                FunctionCounter.builder("rate.limit.rejections", rateLimitFilter,
+                                filter -> filter.rejectionCounts().getOrDefault(route, 0L))
+                        .tag("route", route)
+                        .description("Requests answered with 429")
+                        .register(registry));
+    }
+
+    @Bean
+    public MeterBinder refreshTokenPurgeMetrics(RefreshTokenPurgeService purgeService) {
+        return registry -> FunctionCounter.builder("refresh.token.purged", purgeService,
+                        RefreshTokenPurgeService::purgedCount)
+                .description("Expired refresh tokens deleted by the background purge")
+                .register(registry);
+    }
+
+    @Bean
+    public MeterBinder auditLogMetrics(AuditLog auditLog) {
+        return registry -> {
+            FunctionCounter.builder("audit.events", auditLog, AuditLog::writtenCount)
+                    .tag("outcome", "written")
+                    .register(registry);
+            FunctionCounter.builder("audit.events", auditLog, AuditLog::droppedCount)
+                    .tag("outcome", "dropped")
+                    .description("Events discarded because the audit queue was full")
+                    .register(registry);
+            FunctionCounter.builder("audit.events", auditLog, AuditLog::writeFailureCount)
+                    .tag("outcome", "failed")
+                    .description("Events lost to I/O errors while writing the audit file")
+                    .register(registry);
+            Gauge.builder("audit.queue.depth", auditLog, AuditLog::queueDepth)
+                    .register(registry);
+        };
+    }
+
+    // cache_gets_total{cache="notes",result="hit|miss"}, cache_evictions_total, cache_size, cache_load_duration
+    @Bean
+    public MeterBinder noteCacheMetrics(NoteCache noteCache) {
+        return registry -> CaffeineCacheMetrics.monitor(registry, noteCache.nativeCache(), "notes");
+    }
+
+    @Bean
+    public MeterBinder noteStreamMetrics(NoteChangeFeed noteChangeFeed) {
+        return registry -> {
+            Gauge.builder("notes.stream.subscribers", noteChangeFeed, NoteChangeFeed::subscriberCount)
+                    .description("Open /api/notes/stream connections")
+                    .register(registry);
+            FunctionCounter.builder("notes.stream.sent", noteChangeFeed, NoteChangeFeed::sentCount)
+                    .description("Events and heartbeats written to subscribers")
+                    .register(registry);
+            FunctionCounter.builder("notes.stream.slow.consumers", noteChangeFeed,
+                            NoteChangeFeed::slowConsumerDropCount)
+                    .description("Subscribers disconnected because their queue overflowed")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.lab10.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-route rate limits, bound from the {@code rate-limit.*} properties.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    // Upper bound on tracked clients per route; least recently seen clients are dropped first
+    private int maxTrackedClients = 100_000;
+
+    private int stripes = 64;
+
+    private Limit defaultLimit = new Limit();
+
+    // Checked in order, first matching pattern wins; unmatched paths use defaultLimit
+    private List<Route> routes = new ArrayList<>();
+
+    @Data
+    public static class Limit {
+        private int capacity = 50;
+        private int refillPerMinute = 50;
+    }
+
+    @Data
+    public static class Route {
+        private String pattern;
+        private int capacity;
+        private int refillPerMinute;
+    }
+}
@@ -1,25 +1,42 @@
 package com.example.lab10.config;
 
+import com.example.lab10.security.AdaptiveBCryptPasswordEncoder;
+import com.example.lab10.security.AuthenticatedUser;
+import com.example.lab10.security.BoundedPasswordEncoder;
+import com.example.lab10.security.FormLoginOverloadFilter;
+import com.example.lab10.security.PasswordHashingExecutor;
+import com.example.lab10.service.RefreshTokenService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.boot.autoconfigure.security.servlet.PathRequest;
 
+import java.util.Map;
+
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity
 public class SecurityConfig {
 
+        private static final Logger logger = LoggerFactory.getLogger(SecurityConfig.class);
+
         private final UserDetailsService userDetailsService;
         private final com.example.lab10.security.JwtAuthenticationFilter jwtAuthenticationFilter;
 
@@ -47,9 +64,27 @@ public class SecurityConfig {
                 return http.build();
         }
 
-        // API Security Filter Chain (JWT)
+        // Actuator Security Filter Chain: health is public, metrics need an ADMIN (HTTP Basic or JWT)
         @Bean
         @org.springframework.core.annotation.Order(1)
+        public SecurityFilterChain actuatorSecurityFilterChain(HttpSecurity http) throws Exception {
+                http
+                                .securityMatcher(EndpointRequest.toAnyEndpoint())
+                                .csrf(csrf -> csrf.disable())
+                                .sessionManagement(session -> session.sessionCreationPolicy(
+                                                org.springframework.security.config.http.SessionCreationPolicy.STATELESS))
+                                .authorizeHttpRequests(auth -> auth
+                                                .requestMatchers(EndpointRequest.to(HealthEndpoint.class)).permitAll()
+                                                .anyRequest().hasRole("ADMIN"))
+                                .httpBasic(Customizer.withDefaults())
+                                .addFilterBefore(jwtAuthenticationFilter,
+                                                org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter.class);
+                return http.build();
+        }
+
+        // API Security Filter Chain (JWT)
+        @Bean
+        @org.springframework.core.annotation.Order(2)
         public SecurityFilterChain apiSecurityFilterChain(HttpSecurity http) throws Exception {
                 http
                                 .securityMatcher("/api/**")
@@ -57,8 +92,15 @@ public class SecurityConfig {
                                 .sessionManagement(session -> session.sessionCreationPolicy(
                                                 org.springframework.security.config.http.SessionCreationPolicy.STATELESS))
                                 .authorizeHttpRequests(auth -> auth
+                                                // Streaming responses finish on an async dispatch of an already authorized request
+                                                .dispatcherTypeMatchers(jakarta.servlet.DispatcherType.ASYNC).permitAll()
+                                                .requestMatchers("/api/auth/logout").authenticated()
                                                 .requestMatchers("/api/auth/**").permitAll()
                                                 .anyRequest().authenticated())
+                                // Missing, expired or revoked token: 401, so clients know to sign in again
+                                .exceptionHandling(exceptions -> exceptions.authenticationEntryPoint(
+                                                new org.springframework.security.web.authentication.HttpStatusEntryPoint(
+                                                                org.springframework.http.HttpStatus.UNAUTHORIZED)))
                                 .addFilterBefore(jwtAuthenticationFilter,
                                                 org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter.class);
 
@@ -67,8 +109,9 @@ public class SecurityConfig {
 
         // Web Security Filter Chain (Form Login)
         @Bean
-        @org.springframework.core.annotation.Order(2)
-        public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+        @org.springframework.core.annotation.Order(3)
+        public SecurityFilterChain securityFilterChain(HttpSecurity http, RefreshTokenService refreshTokenService)
+                        throws Exception {
                 http
                                 .csrf(csrf -> csrf
                                                 .ignoringRequestMatchers("/register"))
@@ -89,8 +132,18 @@ public class SecurityConfig {
                                                 .loginPage("/login")
                                                 .defaultSuccessUrl("/", true)
                                                 .permitAll())
+                                // A full hashing pool is a 503 here too, not a 500
+                                .addFilterBefore(new FormLoginOverloadFilter(),
+                                                org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter.class)
                                 .logout(logout -> logout
                                                 .logoutUrl("/logout")
+                                                // Signing out of the web app also ends the user's API sessions
+                                                .addLogoutHandler((request, response, authentication) -> {
+                                                        if (authentication != null && authentication
+                                                                        .getPrincipal() instanceof AuthenticatedUser user) {
+                                                                refreshTokenService.deleteByUserId(user.getId());
+                                                        }
+                                                })
                                                 .invalidateHttpSession(true)
                                                 .clearAuthentication(true)
                                                 .deleteCookies("JSESSIONID")
@@ -100,10 +153,13 @@ public class SecurityConfig {
         }
 
         @Bean
-        public AuthenticationProvider authenticationProvider() {
+        public AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder,
+                        UserDetailsPasswordService userDetailsPasswordService) {
                 DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
                 authProvider.setUserDetailsService(userDetailsService);
-                authProvider.setPasswordEncoder(passwordEncoder());
+                authProvider.setPasswordEncoder(passwordEncoder);
+                // Rehash on successful login when passwordEncoder.upgradeEncoding says the stored hash is stale
+                authProvider.setUserDetailsPasswordService(userDetailsPasswordService);
                 return authProvider;
         }
 
@@ -113,7 +169,21 @@ public class SecurityConfig {
         }
 
         @Bean
-        public PasswordEncoder passwordEncoder() {
-                return new BCryptPasswordEncoder(10);
+        public PasswordEncoder passwordEncoder(PasswordHashingExecutor passwordHashingExecutor,
+                        @Value("${security.password-hashing.bcrypt-strength:0}") int configuredStrength,
+                        @Value("${security.password-hashing.target-ms:250}") long targetMillis) {
+                int strength = configuredStrength > 0 ? configuredStrength
+                                : AdaptiveBCryptPasswordEncoder.calibrateStrength(targetMillis);
+                logger.info("Password hashing: bcrypt strength {} ({})", strength,
+                                configuredStrength > 0 ? "configured" : "calibrated for " + targetMillis + " ms");
+
+                // New hashes are stored as {bcrypt}$2a$<cost>$...; legacy hashes without the prefix still
+                // match, and any hash with another id or a lower cost is rewritten on the next successful login
+                AdaptiveBCryptPasswordEncoder bcrypt = new AdaptiveBCryptPasswordEncoder(strength);
+                DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+                delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+
+                // BCrypt runs on the bounded hashing pool, never directly on request threads
+                return new BoundedPasswordEncoder(delegating, passwordHashingExecutor);
         }
 }
\ No newline at end of file
@@ -1,10 +1,12 @@
 package com.example.lab10.controller;
 
 import com.example.lab10.dto.JwtResponse;
+import com.example.lab10.dto.LoginRequest;
 import com.example.lab10.dto.UserDTO;
 import com.example.lab10.model.RefreshToken;
 import com.example.lab10.model.User;
 import com.example.lab10.repository.UserRepository;
+import com.example.lab10.security.AuthenticatedUser;
 import com.example.lab10.security.JwtUtils;
 import com.example.lab10.service.RefreshTokenService;
 import com.example.lab10.service.UserService;
@@ -13,11 +15,14 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/auth")
 public class AuthRestController {
@@ -49,7 +54,7 @@ public class AuthRestController {
         User savedUser = userService.createUser(user);
         
         // Generate JWT token
-        String jwt = jwtUtils.generateJwtToken(savedUser.getEmail());
+        String jwt = jwtUtils.generateJwtToken(savedUser.getId(), savedUser.getEmail(), List.of(savedUser.getRole()));
         
         // Create refresh token
         RefreshToken refreshToken = refreshTokenService.createRefreshToken(savedUser.getId());
@@ -63,7 +68,7 @@ public class AuthRestController {
     }
 
     @PostMapping("/login")
-    public ResponseEntity<?> authenticateUser(@Valid @RequestBody UserDTO loginRequest) {
+    public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
 
         Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(loginRequest.getEmail(), loginRequest.getPassword()));
@@ -71,11 +76,11 @@ public class AuthRestController {
         SecurityContextHolder.getContext().setAuthentication(authentication);
         UserDetails userDetails = (UserDetails) authentication.getPrincipal();
 
-        String jwt = jwtUtils.generateJwtToken(userDetails.getUsername());
-
         User user = userRepository.findByEmail(userDetails.getUsername())
                 .orElseThrow(() -> new UsernameNotFoundException("User Not Found"));
 
+        String jwt = jwtUtils.generateJwtToken(user.getId(), user.getEmail(), List.of(user.getRole()));
+
         RefreshToken refreshToken = refreshTokenService.createRefreshToken(user.getId());
 
         return ResponseEntity.ok(new JwtResponse(jwt,
@@ -97,15 +102,24 @@ public class AuthRestController {
                     User user = userRepository.findById(refreshToken.getUserId())
                             .orElseThrow(() -> new RuntimeException("User not found"));
 
-                    refreshTokenService.delete(refreshToken); // Invalidate used token
-                    RefreshToken newRefreshToken = refreshTokenService.createRefreshToken(user.getId());
+                    RefreshToken newRefreshToken = refreshTokenService.rotate(refreshToken);
 
-                    String token = jwtUtils.generateJwtToken(user.getEmail());
+                    String token = jwtUtils.generateJwtToken(user.getId(), user.getEmail(), List.of(user.getRole()));
                     return ResponseEntity.ok(new TokenRefreshResponse(token, newRefreshToken.getToken()));
                 })
                 .orElseThrow(() -> new RuntimeException("Refresh token is not in database!"));
     }
 
+    /**
+     * Full sign-out: deletes every refresh token of the user and revokes the access tokens issued so far,
+     * including the one on this request.
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@AuthenticationPrincipal AuthenticatedUser principal) {
+        refreshTokenService.deleteByUserId(principal.getId());
+        return ResponseEntity.noContent().build();
+    }
+
     // Simple DTOs for refresh request/response
     public static class TokenRefreshRequest {
         private String refreshToken;
@@ -2,6 +2,10 @@ package com.example.lab10.controller;
 
 import com.example.lab10.dto.NoteDTO;
 import com.example.lab10.service.NoteService;
+import com.example.lab10.service.NoteVersionTracker;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
@@ -10,18 +14,30 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.context.request.WebRequest;
 
 @Controller
 public class NoteController {
 
     private final NoteService noteService;
+    private final NoteVersionTracker noteVersionTracker;
 
-    public NoteController(NoteService noteService) {
+    public NoteController(NoteService noteService, NoteVersionTracker noteVersionTracker) {
         this.noteService = noteService;
+        this.noteVersionTracker = noteVersionTracker;
     }
 
+    // Unchanged notes answer 304 before any query or template rendering. The page embeds the
+    // session's CSRF token, so the ETag is per session too: a new login always gets a fresh page
     @GetMapping("/dashboard")
-    public String dashboard(Model model) {
+    public String dashboard(Model model, WebRequest webRequest, HttpServletResponse response) {
+        NoteVersionTracker.NoteVersion version = noteVersionTracker.current(noteService.getCurrentUserId());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+        String etag = version.etag() + "-" + Integer.toHexString(webRequest.getSessionId().hashCode());
+        if (webRequest.checkNotModified(etag, version.lastModifiedMillis())) {
+            return null;
+        }
+
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         model.addAttribute("username", auth.getName());
         model.addAttribute("notes", noteService.getMyNotes());
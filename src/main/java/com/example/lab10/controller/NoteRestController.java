@@ -0,0 +1,125 @@
+package com.example.lab10.controller;
+
+import com.example.lab10.dto.BulkNoteOperation;
+import com.example.lab10.dto.BulkNoteResult;
+import com.example.lab10.dto.NoteChanges;
+import com.example.lab10.dto.NoteDTO;
+import com.example.lab10.dto.NotePage;
+import com.example.lab10.dto.NoteSearchHit;
+import com.example.lab10.model.Note;
+import com.example.lab10.service.NoteBulkService;
+import com.example.lab10.service.NoteChangeFeed;
+import com.example.lab10.service.NoteExportService;
+import com.example.lab10.service.NoteSearchService;
+import com.example.lab10.service.NoteService;
+import com.example.lab10.service.NoteVersionTracker;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/notes")
+public class NoteRestController {
+
+    private final NoteService noteService;
+    private final NoteExportService noteExportService;
+    private final NoteBulkService noteBulkService;
+    private final NoteSearchService noteSearchService;
+    private final NoteVersionTracker noteVersionTracker;
+    private final NoteChangeFeed noteChangeFeed;
+
+    public NoteRestController(NoteService noteService, NoteExportService noteExportService,
+            NoteBulkService noteBulkService, NoteSearchService noteSearchService,
+            NoteVersionTracker noteVersionTracker, NoteChangeFeed noteChangeFeed) {
+        this.noteService = noteService;
+        this.noteExportService = noteExportService;
+        this.noteBulkService = noteBulkService;
+        this.noteSearchService = noteSearchService;
+        this.noteVersionTracker = noteVersionTracker;
+        this.noteChangeFeed = noteChangeFeed;
+    }
+
+    // Newest first; follow nextCursor for older notes. limit is capped at NoteService.MAX_PAGE_SIZE.
+    // A poll with a current If-None-Match / If-Modified-Since gets 304 without a query
+    @GetMapping
+    public NotePage getNotes(@RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit, WebRequest webRequest, HttpServletResponse response) {
+        NoteVersionTracker.NoteVersion version = noteVersionTracker.current(noteService.getCurrentUserId());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+        if (webRequest.checkNotModified(version.etag(), version.lastModifiedMillis())) {
+            return null;
+        }
+        return noteService.getMyNotesPage(cursor, limit);
+    }
+
+    // Streams every note as NDJSON or CSV without loading them into memory
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportNotes(@RequestParam(defaultValue = "ndjson") String format) {
+        NoteExportService.Format exportFormat = NoteExportService.Format.parse(format);
+        // Resolve the user on the request thread; the body is written on an async thread
+        Long userId = noteService.getCurrentUserId();
+
+        StreamingResponseBody body = out -> noteExportService.export(userId, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"notes." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
+    // Server-Sent Events for every change to the user's notes; replaces polling getNotes
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream() {
+        return noteChangeFeed.subscribe(noteService.getCurrentUserId());
+    }
+
+    // Delta sync: pass the returned revision back as since; limit is capped at NoteService.MAX_CHANGES_LIMIT
+    @GetMapping("/changes")
+    public NoteChanges getChanges(@RequestParam(required = false) Long since,
+            @RequestParam(required = false) Integer limit) {
+        return noteService.getChangesSince(since, limit);
+    }
+
+    // Best matches first, ranked over title and content; limit is capped at NoteService.MAX_PAGE_SIZE
+    @GetMapping("/search")
+    public List<NoteSearchHit> search(@RequestParam String q, @RequestParam(required = false) Integer limit) {
+        return noteSearchService.search(q, limit);
+    }
+
+    @GetMapping("/{id}")
+    public Note getNote(@PathVariable Long id) {
+        return noteService.getNoteById(id);
+    }
+
+    @PostMapping
+    public ResponseEntity<Note> createNote(@Valid @RequestBody NoteDTO noteDTO) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(noteService.createNote(noteDTO));
+    }
+
+    // Up to NoteBulkService.MAX_OPERATIONS changes in one transaction; one result per operation, in order
+    @PostMapping("/bulk")
+    public List<BulkNoteResult> bulk(@RequestBody List<BulkNoteOperation> operations) {
+        return noteBulkService.apply(operations);
+    }
+
+    @PutMapping("/{id}")
+    public Note updateNote(@PathVariable Long id, @Valid @RequestBody NoteDTO noteDTO) {
+        return noteService.updateNote(id, noteDTO);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteNote(@PathVariable Long id) {
+        noteService.deleteNote(id);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,9 +1,10 @@
 package com.example.lab10.controller;
 
+import com.example.lab10.audit.AuditEvent;
+import com.example.lab10.audit.AuditLog;
 import com.example.lab10.dto.UserDTO;
 import com.example.lab10.model.User;
 import com.example.lab10.service.UserService;
-import com.example.lab10.util.LoggingUtils;
 import jakarta.validation.Valid;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -16,9 +17,11 @@ import org.springframework.web.bind.annotation.PostMapping;
 public class RegistrationController {
 
     private final UserService userService;
+    private final AuditLog auditLog;
 
-    public RegistrationController(UserService userService) {
+    public RegistrationController(UserService userService, AuditLog auditLog) {
         this.userService = userService;
+        this.auditLog = auditLog;
     }
 
     private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(RegistrationController.class);
@@ -32,7 +35,7 @@ public class RegistrationController {
     @PostMapping("/register")
     public String register(@Valid @ModelAttribute("user") UserDTO userDTO, BindingResult result) {
         if (result.hasErrors()) {
-            logger.warn("Validation failed during registration for user: {}", LoggingUtils.maskEmail(userDTO.getEmail()));
+            auditLog.record(AuditEvent.Type.REGISTRATION_INVALID, userDTO.getEmail());
             return "register";
         }
 
@@ -44,9 +47,10 @@ public class RegistrationController {
             // Role and Details handled in Service/Entity defaults
             
             userService.createUser(user);
-            logger.info("Registration successful for user: {}", LoggingUtils.maskEmail(user.getEmail()));
+            auditLog.record(AuditEvent.Type.REGISTRATION_SUCCESS, user.getEmail());
             
         } catch (Exception e) {
+            auditLog.record(AuditEvent.Type.REGISTRATION_FAILED, userDTO.getEmail(), e.getClass().getSimpleName());
             logger.error("Registration failed", e);
             return "redirect:/register?error";
         }
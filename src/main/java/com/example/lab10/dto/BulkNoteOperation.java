@@ -0,0 +1,20 @@
+package com.example.lab10.dto;
+
+import lombok.Data;
+
+/**
+ * One entry of a bulk request. CREATE needs title and content, UPDATE needs id, title and
+ * content, DELETE needs only id. Title and content follow the NoteDTO constraints.
+ */
+@Data
+public class BulkNoteOperation {
+
+    public enum Type {
+        CREATE, UPDATE, DELETE
+    }
+
+    private Type type;
+    private Long id;
+    private String title;
+    private String content;
+}
@@ -0,0 +1,15 @@
+package com.example.lab10.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class BulkNoteResult {
+    // Position of the operation in the request
+    private int index;
+    private Long id;
+    // HTTP-style outcome: 201 created, 200 updated, 204 deleted, 400 invalid, 404 not found
+    private int status;
+    private String error;
+}
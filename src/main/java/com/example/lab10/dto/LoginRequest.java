@@ -3,6 +3,10 @@ package com.example.lab10.dto;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
 
+/**
+ * Credentials for POST /api/auth/login. Unlike UserDTO the password carries no policy: it only has to
+ * match what is stored, whatever rules were in force when it was chosen.
+ */
 @Data
 public class LoginRequest {
     @NotBlank(message = "Email is required")
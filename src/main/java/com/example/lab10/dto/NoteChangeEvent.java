@@ -0,0 +1,19 @@
+package com.example.lab10.dto;
+
+import com.example.lab10.model.Note;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class NoteChangeEvent {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    private Type type;
+    private Long noteId;
+    // The stored note for CREATED and UPDATED, null for DELETED
+    private Note note;
+}
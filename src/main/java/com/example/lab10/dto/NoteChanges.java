@@ -0,0 +1,19 @@
+package com.example.lab10.dto;
+
+import com.example.lab10.model.Note;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class NoteChanges {
+    // Notes created or updated since the client's revision, in their current state
+    private List<Note> changed;
+    // Ids of notes deleted since the client's revision
+    private List<Long> deleted;
+    // Pass back as "since" on the next call
+    private long revision;
+    private boolean hasMore;
+}
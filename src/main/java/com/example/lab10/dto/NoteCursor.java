@@ -0,0 +1,39 @@
+package com.example.lab10.dto;
+
+import com.example.lab10.exception.BadRequestException;
+import com.example.lab10.model.Note;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset position in a user's notes, ordered by (created_at, id) descending.
+ * Serialized as an opaque URL-safe token so clients cannot depend on its shape.
+ */
+public record NoteCursor(LocalDateTime createdAt, long id) {
+
+    // Sorts after every real note; the first page seeks from here
+    public static final NoteCursor START = new NoteCursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+
+    public static NoteCursor after(Note note) {
+        return new NoteCursor(note.getCreatedAt(), note.getId());
+    }
+
+    public String encode() {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static NoteCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return new NoteCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new BadRequestException("Invalid page cursor");
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.lab10.dto;
+
+import com.example.lab10.model.Note;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class NotePage {
+    private List<Note> items;
+    // Opaque token for the next page, null on the last page
+    private String nextCursor;
+}
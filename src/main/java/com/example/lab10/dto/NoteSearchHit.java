@@ -0,0 +1,13 @@
+package com.example.lab10.dto;
+
+import com.example.lab10.model.Note;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class NoteSearchHit {
+    private Note note;
+    // BM25 relevance; only meaningful for ordering results of the same query
+    private double score;
+}
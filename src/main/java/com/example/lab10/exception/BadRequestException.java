@@ -0,0 +1,11 @@
+package com.example.lab10.exception;
+
+/**
+ * Thrown when a request parameter or body fails validation; the message is shown to the client (400).
+ */
+public class BadRequestException extends RuntimeException {
+
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
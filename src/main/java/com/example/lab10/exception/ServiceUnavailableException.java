@@ -0,0 +1,11 @@
+package com.example.lab10.exception;
+
+/**
+ * Thrown when a bounded resource is saturated and the request should be retried later (503).
+ */
+public class ServiceUnavailableException extends RuntimeException {
+
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.lab10.filter;
 
+import com.example.lab10.config.RateLimitProperties;
 import jakarta.servlet.Filter;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -8,37 +9,57 @@ import jakarta.servlet.ServletResponse;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Component
 public class RateLimitFilter implements Filter {
 
-    private final Map<String, RequestCounter> requestCounts = new ConcurrentHashMap<>();
-    private static final int MAX_REQUESTS_PER_MINUTE = 50; // Simple limit
+    private static final long IDLE_SWEEP_INTERVAL_MS = 60000;
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final boolean enabled;
+    private final List<RouteLimit> routes = new ArrayList<>();
+    private final RouteLimit defaultRoute;
+    private final AtomicLong lastIdleSweep = new AtomicLong(System.currentTimeMillis());
+
+    public RateLimitFilter(RateLimitProperties properties) {
+        this.enabled = properties.isEnabled();
+        for (RateLimitProperties.Route route : properties.getRoutes()) {
+            routes.add(new RouteLimit(route.getPattern(), route.getRefillPerMinute(), new RateLimiter(
+                    route.getCapacity(), route.getRefillPerMinute(),
+                    properties.getMaxTrackedClients(), properties.getStripes())));
+        }
+        RateLimitProperties.Limit limit = properties.getDefaultLimit();
+        this.defaultRoute = new RouteLimit("/**", limit.getRefillPerMinute(), new RateLimiter(
+                limit.getCapacity(), limit.getRefillPerMinute(),
+                properties.getMaxTrackedClients(), properties.getStripes()));
+    }
 
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
             throws IOException, ServletException {
+        if (!enabled) {
+            chain.doFilter(request, response);
+            return;
+        }
 
         HttpServletRequest httpRequest = (HttpServletRequest) request;
         HttpServletResponse httpResponse = (HttpServletResponse) response;
         String clientIp = httpRequest.getRemoteAddr();
 
-        RequestCounter counter = requestCounts.compute(clientIp, (key, value) -> {
-            long currentTime = System.currentTimeMillis();
-            if (value == null || currentTime - value.startTime > 60000) {
-                return new RequestCounter(currentTime, new AtomicInteger(1));
-            }
-            value.count.incrementAndGet();
-            return value;
-        });
+        RouteLimit route = resolve(httpRequest.getRequestURI().substring(httpRequest.getContextPath().length()));
+        sweepIdleClients();
 
-        if (counter.count.get() > MAX_REQUESTS_PER_MINUTE) {
+        if (!route.limiter.tryAcquire(clientIp)) {
             httpResponse.setStatus(429); // Too Many Requests
+            httpResponse.setHeader("Retry-After", String.valueOf(route.retryAfterSeconds));
             httpResponse.getWriter().write("Too many requests");
             return;
         }
@@ -46,13 +67,44 @@ public class RateLimitFilter implements Filter {
         chain.doFilter(request, response);
     }
 
-    private static class RequestCounter {
-        long startTime;
-        AtomicInteger count;
+    private RouteLimit resolve(String path) {
+        for (RouteLimit route : routes) {
+            if (pathMatcher.match(route.pattern, path)) {
+                return route;
+            }
+        }
+        return defaultRoute;
+    }
+
+    // At most one request per interval pays for the sweep
+    private void sweepIdleClients() {
+        long now = System.currentTimeMillis();
+        long last = lastIdleSweep.get();
+        if (now - last >= IDLE_SWEEP_INTERVAL_MS && lastIdleSweep.compareAndSet(last, now)) {
+            routes.forEach(route -> route.limiter.evictIdle());
+            defaultRoute.limiter.evictIdle();
+        }
+    }
+
+    /**
+     * Rejected requests per route pattern, for monitoring.
+     */
+    public Map<String, Long> rejectionCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        routes.forEach(route -> counts.put(route.pattern, route.limiter.rejectedCount()));
+        counts.put(defaultRoute.pattern, defaultRoute.limiter.rejectedCount());
+        return counts;
+    }
+
+    private static final class RouteLimit {
+        final String pattern;
+        final long retryAfterSeconds;
+        final RateLimiter limiter;
 
-        RequestCounter(long startTime, AtomicInteger count) {
-            this.startTime = startTime;
-            this.count = count;
+        RouteLimit(String pattern, int refillPerMinute, RateLimiter limiter) {
+            this.pattern = pattern;
+            this.retryAfterSeconds = Math.max(1, (long) Math.ceil(60.0 / refillPerMinute));
+            this.limiter = limiter;
         }
     }
 }
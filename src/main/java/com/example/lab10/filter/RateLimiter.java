@@ -0,0 +1,156 @@
+package com.example.lab10.filter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Token-bucket rate limiter over a fixed-capacity, lock-striped table.
+ * <p>
+ * Keys hash to one of a fixed number of stripes; each stripe is an access-ordered map
+ * guarded by its own lock, so unrelated clients rarely contend. When a stripe is full the
+ * least recently seen client is dropped, which keeps memory flat no matter how many
+ * distinct keys arrive. A dropped client simply starts again with a full bucket.
+ */
+public class RateLimiter {
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final double capacity;
+    private final double tokensPerNano;
+    private final long idleNanos;
+    private final LongSupplier clock;
+
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public RateLimiter(int capacity, int refillPerMinute, int maxKeys, int stripeCount) {
+        this(capacity, refillPerMinute, maxKeys, stripeCount, System::nanoTime);
+    }
+
+    RateLimiter(int capacity, int refillPerMinute, int maxKeys, int stripeCount, LongSupplier clock) {
+        if (capacity <= 0 || refillPerMinute <= 0 || maxKeys <= 0) {
+            throw new IllegalArgumentException("Rate limit capacity, refill rate and table size must be positive");
+        }
+        int stripesPow2 = Integer.highestOneBit(Math.max(1, Math.min(stripeCount, maxKeys)));
+        this.stripes = new Stripe[stripesPow2];
+        int perStripe = Math.max(1, maxKeys / stripesPow2);
+        for (int i = 0; i < stripesPow2; i++) {
+            stripes[i] = new Stripe(perStripe);
+        }
+        this.stripeMask = stripesPow2 - 1;
+        this.capacity = capacity;
+        this.tokensPerNano = refillPerMinute / 60_000_000_000d;
+        // A bucket idle this long has refilled completely and is indistinguishable from a new one
+        this.idleNanos = (long) Math.ceil(capacity / tokensPerNano);
+        this.clock = clock;
+    }
+
+    /**
+     * Takes one token for the key, returning false if the client is over its limit.
+     */
+    public boolean tryAcquire(String key) {
+        Stripe stripe = stripes[spread(key.hashCode()) & stripeMask];
+        long now = clock.getAsLong();
+
+        stripe.lock.lock();
+        try {
+            Bucket bucket = stripe.buckets.get(key);
+            if (bucket == null) {
+                bucket = new Bucket(capacity, now);
+                stripe.buckets.put(key, bucket);
+            } else {
+                long elapsed = now - bucket.lastRefill;
+                if (elapsed > 0) {
+                    bucket.tokens = Math.min(capacity, bucket.tokens + elapsed * tokensPerNano);
+                    bucket.lastRefill = now;
+                }
+            }
+
+            if (bucket.tokens >= 1) {
+                bucket.tokens -= 1;
+                return true;
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+
+        rejections.increment();
+        return false;
+    }
+
+    /**
+     * Drops clients that have been idle long enough to be back at a full bucket.
+     */
+    public void evictIdle() {
+        long now = clock.getAsLong();
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                // Access order means the idle entries are at the head
+                var it = stripe.buckets.values().iterator();
+                while (it.hasNext() && now - it.next().lastRefill >= idleNanos) {
+                    it.remove();
+                    evictions.increment();
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    public long rejectedCount() {
+        return rejections.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.buckets.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    private final class Stripe {
+        final ReentrantLock lock = new ReentrantLock();
+        final Map<String, Bucket> buckets;
+
+        Stripe(int maxEntries) {
+            this.buckets = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+                    if (size() > maxEntries) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+    }
+
+    private static final class Bucket {
+        double tokens;
+        long lastRefill;
+
+        Bucket(double tokens, long lastRefill) {
+            this.tokens = tokens;
+            this.lastRefill = lastRefill;
+        }
+    }
+}
@@ -12,5 +12,8 @@ public class Note {
     private String title;
     private String content;
     private LocalDateTime createdAt = LocalDateTime.now();
+    private LocalDateTime updatedAt;
+    // Position in the owner's change history; increases with every write, see GET /api/notes/changes
+    private Long revision;
     private Long userId; 
 }
@@ -0,0 +1,20 @@
+package com.example.lab10.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Left behind by a deleted note so delta sync can report the delete.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NoteTombstone {
+    private Long noteId;
+    private Long userId;
+    private Long revision;
+    private LocalDateTime deletedAt;
+}
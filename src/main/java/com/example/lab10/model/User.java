@@ -22,5 +22,11 @@ public class User {
     private String role = "ROLE_USER";
     
     // JSON data - stored as String effectively
-    private String details; 
+    private String details;
+
+    // Delta-sync counter owned by NoteRepository; JPA never writes it, so saving a stale User
+    // cannot move it backwards
+    @jakarta.persistence.Column(name = "note_revision", nullable = false, insertable = false, updatable = false)
+    @org.hibernate.annotations.ColumnDefault("0")
+    private long noteRevision;
 }
@@ -0,0 +1,25 @@
+package com.example.lab10.repository;
+
+import com.example.lab10.model.Note;
+
+/**
+ * Notified by NoteRepository after a note write has committed (immediately when there is no
+ * transaction). Lets in-memory views of the notes table follow it without polling.
+ * Called on the writing thread, so implementations must be quick and must not throw.
+ */
+public interface NoteChangeListener {
+
+    /**
+     * A note's title/content changed; {@code note} holds the stored values.
+     */
+    void noteSaved(Note note);
+
+    /**
+     * A new note was stored. Listeners that do not care about the difference get it as a save.
+     */
+    default void noteCreated(Note note) {
+        noteSaved(note);
+    }
+
+    void noteDeleted(Long userId, Long noteId);
+}
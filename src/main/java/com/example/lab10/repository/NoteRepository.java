@@ -1,20 +1,63 @@
 package com.example.lab10.repository;
 
+import com.example.lab10.dto.NoteCursor;
 import com.example.lab10.model.Note;
+import com.example.lab10.model.NoteTombstone;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @Repository
 public class NoteRepository {
 
+    // Rows pulled from the driver per round trip when streaming
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    private static final String INSERT_TOMBSTONE =
+            "INSERT INTO note_tombstones (note_id, user_id, revision, deleted_at) VALUES (?, ?, ?, ?)";
+    private static final String NOTE_COLUMNS = "id, title, content, created_at, updated_at, revision, user_id";
+
     private final JdbcTemplate jdbcTemplate;
+    private final List<NoteChangeListener> listeners;
+    private final TransactionTemplate transactionTemplate;
 
-    public NoteRepository(JdbcTemplate jdbcTemplate) {
+    /**
+     * Writes run through the application's transaction manager with PROPAGATION_REQUIRED, so they join
+     * the caller's transaction (a service's @Transactional) and their listeners fire once it commits.
+     * A private manager would not see that transaction and commit each write on its own.
+     */
+    public NoteRepository(JdbcTemplate jdbcTemplate, List<NoteChangeListener> listeners,
+            PlatformTransactionManager transactionManager) {
         this.jdbcTemplate = jdbcTemplate;
+        this.listeners = List.copyOf(listeners);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRED);
     }
 
     private final RowMapper<Note> noteRowMapper = (rs, rowNum) -> {
@@ -23,33 +66,373 @@ public class NoteRepository {
         note.setTitle(rs.getString("title"));
         note.setContent(rs.getString("content"));
         note.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+        note.setUpdatedAt(rs.getTimestamp("updated_at").toLocalDateTime());
+        note.setRevision(rs.getLong("revision"));
         note.setUserId(rs.getLong("user_id"));
         return note;
     };
 
+    private final RowMapper<NoteTombstone> tombstoneRowMapper = (rs, rowNum) -> new NoteTombstone(
+            rs.getLong("note_id"), rs.getLong("user_id"), rs.getLong("revision"),
+            rs.getTimestamp("deleted_at").toLocalDateTime());
+
+    @Timed(value = "db.query", extraTags = {"query", "notes.findByUserId"})
     public List<Note> findByUserId(Long userId) {
         String sql = "SELECT * FROM notes WHERE user_id = ?";
         return jdbcTemplate.query(sql, noteRowMapper, userId);
     }
 
+    /**
+     * Keyset (seek) page of a user's notes, newest first. Pass null for the first page,
+     * otherwise the (createdAt, id) of the last note already returned.
+     */
+    @Timed(value = "db.query", extraTags = {"query", "notes.findPageByUserId"})
+    public List<Note> findPageByUserId(Long userId, NoteCursor after, int limit) {
+        // The first page seeks from NoteCursor.START so every page shares one plan.
+        // The redundant created_at <= ? bound lets idx_notes_user_created seek instead of the FK index,
+        // and leading the ORDER BY with the equality column lets H2 read rows in index order unsorted
+        String sql = "SELECT " + NOTE_COLUMNS + " FROM notes WHERE user_id = ? "
+                + "AND created_at <= ? AND (created_at < ? OR id < ?) "
+                + "ORDER BY user_id, created_at DESC, id DESC LIMIT ?";
+        NoteCursor from = after != null ? after : NoteCursor.START;
+        Timestamp createdAt = Timestamp.valueOf(from.createdAt());
+        return jdbcTemplate.query(sql, noteRowMapper, userId, createdAt, createdAt, from.id(), limit);
+    }
+
+    /**
+     * Streams every note of the user, newest first, to the consumer row by row.
+     * Nothing is buffered here, so heap use does not grow with the number of notes.
+     */
+    // Timed end to end, so this also includes the consumer's time spent writing each row
+    @Timed(value = "db.query", extraTags = {"query", "notes.streamByUserId"})
+    public void streamByUserId(Long userId, Consumer<Note> consumer) {
+        // Same seek and order as findPageByUserId, so rows come straight off the index without a sort
+        String sql = "SELECT " + NOTE_COLUMNS + " FROM notes WHERE user_id = ? "
+                + "AND created_at <= ? ORDER BY user_id, created_at DESC, id DESC";
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            ps.setLong(1, userId);
+            ps.setTimestamp(2, Timestamp.valueOf(NoteCursor.START.createdAt()));
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(noteRowMapper.mapRow(rs, rs.getRow())));
+    }
+
+    /**
+     * Streams every note of every user, for rebuilding in-memory views such as the search index.
+     */
+    @Timed(value = "db.query", extraTags = {"query", "notes.streamAll"})
+    public void streamAll(Consumer<Note> consumer) {
+        String sql = "SELECT " + NOTE_COLUMNS + " FROM notes";
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(noteRowMapper.mapRow(rs, rs.getRow())));
+    }
+
+    /**
+     * The user's notes among {@code ids}, in no particular order; ids of other users' notes are ignored.
+     */
+    @Timed(value = "db.query", extraTags = {"query", "notes.findByIdsAndUserId"})
+    public List<Note> findByIdsAndUserId(List<Long> ids, Long userId) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        String sql = "SELECT " + NOTE_COLUMNS + " FROM notes WHERE user_id = ? AND id IN ("
+                + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")";
+        Object[] params = new Object[ids.size() + 1];
+        params[0] = userId;
+        for (int i = 0; i < ids.size(); i++) {
+            params[i + 1] = ids.get(i);
+        }
+        return jdbcTemplate.query(sql, noteRowMapper, params);
+    }
+
+    @Timed(value = "db.query", extraTags = {"query", "notes.findById"})
     public Optional<Note> findById(Long id) {
         String sql = "SELECT * FROM notes WHERE id = ?";
         return jdbcTemplate.query(sql, noteRowMapper, id).stream().findFirst();
     }
 
-    public void save(Note note) {
-        if (note.getId() == null) {
-            String sql = "INSERT INTO notes (title, content, user_id) VALUES (?, ?, ?)";
-            jdbcTemplate.update(sql, note.getTitle(), note.getContent(), note.getUserId());
+    @Timed(value = "db.query", extraTags = {"query", "notes.findByIdAndUserId"})
+    public Optional<Note> findByIdAndUserId(Long id, Long userId) {
+        String sql = "SELECT " + NOTE_COLUMNS + " FROM notes WHERE id = ? AND user_id = ?";
+        return jdbcTemplate.query(sql, noteRowMapper, id, userId).stream().findFirst();
+    }
+
+    /**
+     * Updates a note only if it belongs to the user, and returns the row as stored.
+     * Empty means nothing matched: the note is missing or owned by someone else.
+     */
+    @Timed(value = "db.query", extraTags = {"query", "notes.updateByIdAndUserId"})
+    public Optional<Note> updateByIdAndUserId(Long id, Long userId, String title, String content) {
+        // FINAL TABLE returns the updated row from the same statement, so ownership check,
+        // write and read-back are one round trip
+        String sql = "SELECT " + NOTE_COLUMNS + " FROM FINAL TABLE ("
+                + "UPDATE notes SET title = ?, content = ?, updated_at = ?, revision = ? WHERE id = ? AND user_id = ?)";
+        return inTransaction(() -> {
+            long revision = nextRevisions(userId, 1);
+            Optional<Note> updated = jdbcTemplate.query(sql, noteRowMapper, title, content,
+                    Timestamp.valueOf(now()), revision, id, userId).stream().findFirst();
+            updated.ifPresent(this::fireSaved);
+            return updated;
+        });
+    }
+
+    /**
+     * Inserts all notes in one JDBC batch and sets the generated id on each of them, like save.
+     */
+    @Timed(value = "db.query", extraTags = {"query", "notes.batchInsert"})
+    public void batchInsert(List<Note> notes) {
+        String sql = "INSERT INTO notes (title, content, created_at, updated_at, revision, user_id) "
+                + "VALUES (?, ?, ?, ?, ?, ?)";
+        inTransaction(() -> {
+            assignRevisions(notes);
+            notes.forEach(note -> {
+                note.setCreatedAt(toColumnPrecision(note.getCreatedAt()));
+                note.setUpdatedAt(note.getCreatedAt());
+            });
+            GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
+            jdbcTemplate.batchUpdate(con -> con.prepareStatement(sql, new String[]{"id"}),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            Note note = notes.get(i);
+                            ps.setString(1, note.getTitle());
+                            ps.setString(2, note.getContent());
+                            ps.setTimestamp(3, Timestamp.valueOf(note.getCreatedAt()));
+                            ps.setTimestamp(4, Timestamp.valueOf(note.getUpdatedAt()));
+                            ps.setLong(5, note.getRevision());
+                            ps.setLong(6, note.getUserId());
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return notes.size();
+                        }
+                    }, keyHolder);
+            List<Map<String, Object>> keys = keyHolder.getKeyList();
+            for (int i = 0; i < notes.size(); i++) {
+                notes.get(i).setId(((Number) keys.get(i).get("id")).longValue());
+                fireCreated(notes.get(i));
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Batched owned-row update; an entry of 0 in the result means that note is missing or not the user's.
+     */
+    @Timed(value = "db.query", extraTags = {"query", "notes.batchUpdateByIdAndUserId"})
+    public int[] batchUpdateByIdAndUserId(List<Note> notes, Long userId) {
+        String sql = "UPDATE notes SET title = ?, content = ?, updated_at = ?, revision = ? WHERE id = ? AND user_id = ?";
+        return inTransaction(() -> {
+            long first = nextRevisions(userId, notes.size()) - notes.size() + 1;
+            Timestamp updatedAt = Timestamp.valueOf(now());
+            List<Object[]> args = new ArrayList<>(notes.size());
+            for (int i = 0; i < notes.size(); i++) {
+                Note note = notes.get(i);
+                args.add(new Object[]{note.getTitle(), note.getContent(), updatedAt, first + i, note.getId(), userId});
+            }
+            int[] counts = jdbcTemplate.batchUpdate(sql, args);
+            if (!listeners.isEmpty()) {
+                // Events carry the stored rows, created_at included: one read for the whole batch
+                List<Long> updated = new ArrayList<>();
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] != 0) {
+                        updated.add(notes.get(i).getId());
+                    }
+                }
+                List<Note> stored = new ArrayList<>(findByIdsAndUserId(updated, userId));
+                stored.sort(Comparator.comparing(Note::getRevision));
+                stored.forEach(this::fireSaved);
+            }
+            return counts;
+        });
+    }
+
+    /**
+     * Batched owned-row delete; an entry of 0 in the result means that note is missing or not the user's.
+     */
+    @Timed(value = "db.query", extraTags = {"query", "notes.batchDeleteByIdAndUserId"})
+    public int[] batchDeleteByIdAndUserId(List<Long> ids, Long userId) {
+        String sql = "DELETE FROM notes WHERE id = ? AND user_id = ?";
+        return inTransaction(() -> {
+            long first = nextRevisions(userId, ids.size()) - ids.size() + 1;
+            int[] counts = jdbcTemplate.batchUpdate(sql, ids.stream()
+                    .map(id -> new Object[]{id, userId})
+                    .toList());
+            Timestamp deletedAt = Timestamp.valueOf(now());
+            List<Object[]> tombstones = new ArrayList<>();
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != 0) {
+                    tombstones.add(new Object[]{ids.get(i), userId, first + i, deletedAt});
+                    fireDeleted(userId, ids.get(i));
+                }
+            }
+            if (!tombstones.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_TOMBSTONE, tombstones);
+            }
+            return counts;
+        });
+    }
+
+    /**
+     * Inserts or updates the note and returns it. New notes come back with their generated id;
+     * created_at is written from the entity, so the returned object matches the stored row.
+     * An update reads the row back, so created_at and the event sent to listeners are the stored ones.
+     */
+    @Timed(value = "db.query", extraTags = {"query", "notes.save"})
+    public Note save(Note note) {
+        return inTransaction(() -> {
+            long revision = nextRevisions(note.getUserId(), 1);
+            if (note.getId() == null) {
+                String sql = "INSERT INTO notes (title, content, created_at, updated_at, revision, user_id) "
+                        + "VALUES (?, ?, ?, ?, ?, ?)";
+                note.setCreatedAt(toColumnPrecision(note.getCreatedAt()));
+                note.setUpdatedAt(note.getCreatedAt());
+                note.setRevision(revision);
+                KeyHolder keyHolder = new GeneratedKeyHolder();
+                jdbcTemplate.update(con -> {
+                    PreparedStatement ps = con.prepareStatement(sql, new String[]{"id"});
+                    ps.setString(1, note.getTitle());
+                    ps.setString(2, note.getContent());
+                    ps.setTimestamp(3, Timestamp.valueOf(note.getCreatedAt()));
+                    ps.setTimestamp(4, Timestamp.valueOf(note.getUpdatedAt()));
+                    ps.setLong(5, revision);
+                    ps.setLong(6, note.getUserId());
+                    return ps;
+                }, keyHolder);
+                note.setId(keyHolder.getKeyAs(Long.class));
+                fireCreated(note);
+            } else {
+                // Update yalnız həmin istifadəçiyə aid qeydlər üçün işləyir
+                String sql = "SELECT " + NOTE_COLUMNS + " FROM FINAL TABLE ("
+                        + "UPDATE notes SET title = ?, content = ?, updated_at = ?, revision = ? WHERE id = ? AND user_id = ?)";
+                jdbcTemplate.query(sql, noteRowMapper, note.getTitle(), note.getContent(), Timestamp.valueOf(now()),
+                        revision, note.getId(), note.getUserId()).stream().findFirst().ifPresent(stored -> {
+                            note.setCreatedAt(stored.getCreatedAt());
+                            note.setUpdatedAt(stored.getUpdatedAt());
+                            note.setRevision(stored.getRevision());
+                            fireSaved(stored);
+                        });
+            }
+            return note;
+        });
+    }
+
+    /**
+     * @return the number of rows deleted; 0 when the note is missing or owned by someone else
+     */
+    @Timed(value = "db.query", extraTags = {"query", "notes.deleteByIdAndUserId"})
+    public int deleteByIdAndUserId(Long id, Long userId) {
+        String sql = "DELETE FROM notes WHERE id = ? AND user_id = ?";
+        return inTransaction(() -> {
+            long revision = nextRevisions(userId, 1);
+            int deleted = jdbcTemplate.update(sql, id, userId);
+            if (deleted != 0) {
+                jdbcTemplate.update(INSERT_TOMBSTONE, id, userId, revision, Timestamp.valueOf(now()));
+                fireDeleted(userId, id);
+            }
+            return deleted;
+        });
+    }
+
+    /**
+     * The user's latest committed note revision: every write numbered up to it has committed or
+     * rolled back, so ranges ending there never change under a reader. 0 for unknown users.
+     */
+    @Timed(value = "db.query", extraTags = {"query", "notes.currentRevision"})
+    public long currentRevision(Long userId) {
+        List<Long> revision = jdbcTemplate.queryForList("SELECT note_revision FROM users WHERE id = ?",
+                Long.class, userId);
+        return revision.isEmpty() ? 0 : revision.get(0);
+    }
+
+    /**
+     * The user's notes last written in {@code (after, upTo]}, oldest change first, at most {@code limit}.
+     */
+    @Timed(value = "db.query", extraTags = {"query", "notes.findChangedSince"})
+    public List<Note> findChangedSince(Long userId, long after, long upTo, int limit) {
+        String sql = "SELECT " + NOTE_COLUMNS + " FROM notes WHERE user_id = ? AND revision > ? AND revision <= ? "
+                + "ORDER BY user_id, revision LIMIT ?";
+        return jdbcTemplate.query(sql, noteRowMapper, userId, after, upTo, limit);
+    }
+
+    /**
+     * The user's notes deleted in {@code (after, upTo]}, oldest delete first, at most {@code limit}.
+     */
+    @Timed(value = "db.query", extraTags = {"query", "notes.findTombstonesSince"})
+    public List<NoteTombstone> findTombstonesSince(Long userId, long after, long upTo, int limit) {
+        String sql = "SELECT note_id, user_id, revision, deleted_at FROM note_tombstones "
+                + "WHERE user_id = ? AND revision > ? AND revision <= ? ORDER BY user_id, revision LIMIT ?";
+        return jdbcTemplate.query(sql, tombstoneRowMapper, userId, after, upTo, limit);
+    }
+
+    private <T> T inTransaction(Supplier<T> work) {
+        return transactionTemplate.execute(status -> work.get());
+    }
+
+    // Reserves count revisions for the user and returns the highest, in one round trip like
+    // updateByIdAndUserId. The row lock taken here is held until commit, which is what keeps one user's
+    // revisions committing in order. 0 for unknown users, whose writes match nothing (or fail the
+    // foreign key) anyway
+    private long nextRevisions(Long userId, int count) {
+        List<Long> revision = jdbcTemplate.queryForList("SELECT note_revision FROM FINAL TABLE ("
+                + "UPDATE users SET note_revision = note_revision + ? WHERE id = ?)", Long.class, count, userId);
+        return revision.isEmpty() ? 0 : revision.get(0);
+    }
+
+    private void assignRevisions(List<Note> notes) {
+        Map<Long, List<Note>> byUser = new LinkedHashMap<>();
+        notes.forEach(note -> byUser.computeIfAbsent(note.getUserId(), id -> new ArrayList<>()).add(note));
+        byUser.forEach((userId, userNotes) -> {
+            long next = nextRevisions(userId, userNotes.size()) - userNotes.size() + 1;
+            for (Note note : userNotes) {
+                note.setRevision(next++);
+            }
+        });
+    }
+
+    private static LocalDateTime now() {
+        return toColumnPrecision(LocalDateTime.now());
+    }
+
+    private void fireSaved(Note note) {
+        if (!listeners.isEmpty()) {
+            afterCommit(() -> listeners.forEach(listener -> listener.noteSaved(note)));
+        }
+    }
+
+    private void fireCreated(Note note) {
+        if (!listeners.isEmpty()) {
+            afterCommit(() -> listeners.forEach(listener -> listener.noteCreated(note)));
+        }
+    }
+
+    private void fireDeleted(Long userId, Long noteId) {
+        if (!listeners.isEmpty()) {
+            afterCommit(() -> listeners.forEach(listener -> listener.noteDeleted(userId, noteId)));
+        }
+    }
+
+    // Rolled-back writes must never reach the listeners
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
         } else {
-            // Update yalnız həmin istifadəçiyə aid qeydlər üçün işləyir
-            String sql = "UPDATE notes SET title = ?, content = ? WHERE id = ? AND user_id = ?";
-            jdbcTemplate.update(sql, note.getTitle(), note.getContent(), note.getId(), note.getUserId());
+            action.run();
         }
     }
 
-    public void deleteByIdAndUserId(Long id, Long userId) {
-        String sql = "DELETE FROM notes WHERE id = ? AND user_id = ?";
-        jdbcTemplate.update(sql, id, userId);
+    // TIMESTAMP keeps microseconds; truncate so the entity we return equals what a later read sees
+    private static LocalDateTime toColumnPrecision(LocalDateTime createdAt) {
+        return createdAt.truncatedTo(ChronoUnit.MICROS);
     }
 }
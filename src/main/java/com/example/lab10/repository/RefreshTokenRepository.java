@@ -1,11 +1,16 @@
 package com.example.lab10.repository;
 
 import com.example.lab10.model.RefreshToken;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 
+import java.sql.PreparedStatement;
 import java.sql.Timestamp;
+import java.time.Instant;
 import java.util.Optional;
 
 @Repository
@@ -23,19 +28,26 @@ public class RefreshTokenRepository {
             .expiryDate(rs.getTimestamp("expiry_date").toInstant())
             .build();
 
+    @Timed(value = "db.query", extraTags = {"query", "refreshTokens.findByToken"})
     public Optional<RefreshToken> findByToken(String token) {
         String sql = "SELECT * FROM refresh_tokens WHERE token = ?";
         return jdbcTemplate.query(sql, rowMapper, token).stream().findFirst();
     }
 
+    @Timed(value = "db.query", extraTags = {"query", "refreshTokens.save"})
     public RefreshToken save(RefreshToken refreshToken) {
         if (refreshToken.getId() == null) {
             String sql = "INSERT INTO refresh_tokens (token, user_id, expiry_date) VALUES (?, ?, ?)";
-            jdbcTemplate.update(sql, refreshToken.getToken(), refreshToken.getUserId(),
-                    Timestamp.from(refreshToken.getExpiryDate()));
-            // In a real app we might want to fetch the ID back, but for now this is okay or
-            // we can query it back if needed.
-            // For simplicity in this lab, we just return the object.
+            KeyHolder keyHolder = new GeneratedKeyHolder();
+            jdbcTemplate.update(con -> {
+                PreparedStatement ps = con.prepareStatement(sql, new String[]{"id"});
+                ps.setString(1, refreshToken.getToken());
+                ps.setLong(2, refreshToken.getUserId());
+                ps.setTimestamp(3, Timestamp.from(refreshToken.getExpiryDate()));
+                return ps;
+            }, keyHolder);
+            // Callers such as rotation delete by id, so the new row's id must come back with it
+            refreshToken.setId(keyHolder.getKeyAs(Long.class));
         } else {
             String sql = "UPDATE refresh_tokens SET token = ?, expiry_date = ? WHERE id = ?";
             jdbcTemplate.update(sql, refreshToken.getToken(), Timestamp.from(refreshToken.getExpiryDate()),
@@ -44,11 +56,23 @@ public class RefreshTokenRepository {
         return refreshToken;
     }
 
+    @Timed(value = "db.query", extraTags = {"query", "refreshTokens.deleteByUserId"})
     public void deleteByUserId(Long userId) {
         String sql = "DELETE FROM refresh_tokens WHERE user_id = ?";
         jdbcTemplate.update(sql, userId);
     }
 
+    /**
+     * Deletes at most {@code batchSize} tokens that expired before {@code cutoff}.
+     * Each call is its own short statement, so a large backlog never holds locks for long.
+     */
+    @Timed(value = "db.query", extraTags = {"query", "refreshTokens.deleteExpiredBatch"})
+    public int deleteExpiredBatch(Instant cutoff, int batchSize) {
+        String sql = "DELETE FROM refresh_tokens WHERE expiry_date < ? FETCH FIRST ? ROWS ONLY";
+        return jdbcTemplate.update(sql, Timestamp.from(cutoff), batchSize);
+    }
+
+    @Timed(value = "db.query", extraTags = {"query", "refreshTokens.delete"})
     public void delete(RefreshToken refreshToken) {
         String sql = "DELETE FROM refresh_tokens WHERE id = ?";
         jdbcTemplate.update(sql, refreshToken.getId());
@@ -0,0 +1,315 @@
+package com.example.lab10.search;
+
+import com.example.lab10.model.Note;
+import com.example.lab10.repository.NoteChangeListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over note titles and contents, one per user, so a search only ever
+ * touches the caller's own notes. Kept current by NoteRepository's change callbacks (after commit)
+ * and rebuilt from the notes table on startup, see NoteSearchService.
+ * <p>
+ * Each user's notes get dense document numbers; a term's posting list is a pair of growable int
+ * arrays (document numbers, term frequencies) instead of boxed collections, so a million postings
+ * cost about 8 MB rather than tens. Updates and deletes only clear a document's live bit; the
+ * user's index is compacted once dead documents outnumber live ones. Results are ranked by BM25.
+ * <p>
+ * Held in memory: with several instances, each node indexes only the writes it made itself.
+ */
+@Component
+public class NoteSearchIndex implements NoteChangeListener {
+
+    public static final int MAX_QUERY_TERMS = 16;
+
+    static final int MIN_TOKEN_LENGTH = 2;
+    static final int MAX_TOKEN_LENGTH = 64;
+    // A title word says more about a note than the same word in its body
+    static final int TITLE_WEIGHT = 3;
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int MIN_COMPACTION_DOCS = 1024;
+
+    public record Hit(long noteId, float score) {
+    }
+
+    private final Map<Long, UserIndex> users = new ConcurrentHashMap<>();
+
+    @Override
+    public void noteSaved(Note note) {
+        users.computeIfAbsent(note.getUserId(), id -> new UserIndex()).add(note);
+    }
+
+    @Override
+    public void noteDeleted(Long userId, Long noteId) {
+        UserIndex index = users.get(userId);
+        if (index != null) {
+            index.remove(noteId);
+        }
+    }
+
+    /**
+     * The user's best matching notes for any of the query's terms, best first, at most {@code limit}.
+     */
+    public List<Hit> search(Long userId, String query, int limit) {
+        UserIndex index = users.get(userId);
+        if (index == null || limit <= 0) {
+            return List.of();
+        }
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        return index.search(terms.stream().limit(MAX_QUERY_TERMS).toList(), limit);
+    }
+
+    public void clear() {
+        users.clear();
+    }
+
+    public int documentCount() {
+        int count = 0;
+        for (UserIndex index : users.values()) {
+            count += index.liveCount();
+        }
+        return count;
+    }
+
+    /**
+     * Lower-cased runs of letters and digits; shorter than two characters is noise, and anything
+     * longer than 64 is cut so a pasted blob cannot create huge terms.
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                if (i - start >= MIN_TOKEN_LENGTH) {
+                    tokens.add(text.substring(start, Math.min(i, start + MAX_TOKEN_LENGTH)).toLowerCase(Locale.ROOT));
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static final class PostingList {
+        int[] docs = new int[4];
+        int[] freqs = new int[4];
+        int size;
+
+        void add(int doc, int freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = freq;
+            size++;
+        }
+    }
+
+    private static final class UserIndex {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        private Map<String, PostingList> postings = new HashMap<>();
+        private final Map<Long, Integer> docByNoteId = new HashMap<>();
+        private long[] noteIds = new long[16];
+        private int[] lengths = new int[16];
+        private BitSet live = new BitSet();
+        private int nextDoc;
+        private int liveCount;
+        private long totalLength;
+
+        void add(Note note) {
+            Map<String, int[]> freqs = new HashMap<>();
+            int length = 0;
+            for (String token : tokenize(note.getTitle())) {
+                freqs.computeIfAbsent(token, t -> new int[1])[0] += TITLE_WEIGHT;
+                length += TITLE_WEIGHT;
+            }
+            for (String token : tokenize(note.getContent())) {
+                freqs.computeIfAbsent(token, t -> new int[1])[0]++;
+                length++;
+            }
+
+            lock.writeLock().lock();
+            try {
+                removeLocked(note.getId());
+                int doc = nextDoc++;
+                if (doc == noteIds.length) {
+                    noteIds = Arrays.copyOf(noteIds, doc * 2);
+                    lengths = Arrays.copyOf(lengths, doc * 2);
+                }
+                noteIds[doc] = note.getId();
+                lengths[doc] = length;
+                for (Map.Entry<String, int[]> entry : freqs.entrySet()) {
+                    postings.computeIfAbsent(entry.getKey(), t -> new PostingList()).add(doc, entry.getValue()[0]);
+                }
+                live.set(doc);
+                liveCount++;
+                totalLength += length;
+                docByNoteId.put(note.getId(), doc);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(Long noteId) {
+            lock.writeLock().lock();
+            try {
+                removeLocked(noteId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void removeLocked(Long noteId) {
+            Integer doc = docByNoteId.remove(noteId);
+            if (doc == null) {
+                return;
+            }
+            live.clear(doc);
+            liveCount--;
+            totalLength -= lengths[doc];
+            int dead = nextDoc - liveCount;
+            if (dead > MIN_COMPACTION_DOCS && dead > liveCount) {
+                compact();
+            }
+        }
+
+        // Renumbers live documents densely and drops dead postings and empty terms
+        private void compact() {
+            int[] remap = new int[nextDoc];
+            int next = 0;
+            for (int doc = 0; doc < nextDoc; doc++) {
+                if (live.get(doc)) {
+                    noteIds[next] = noteIds[doc];
+                    lengths[next] = lengths[doc];
+                    remap[doc] = next++;
+                } else {
+                    remap[doc] = -1;
+                }
+            }
+            Iterator<PostingList> lists = postings.values().iterator();
+            while (lists.hasNext()) {
+                PostingList list = lists.next();
+                int kept = 0;
+                for (int i = 0; i < list.size; i++) {
+                    int doc = remap[list.docs[i]];
+                    if (doc >= 0) {
+                        list.docs[kept] = doc;
+                        list.freqs[kept] = list.freqs[i];
+                        kept++;
+                    }
+                }
+                list.size = kept;
+                if (kept == 0) {
+                    lists.remove();
+                }
+            }
+            postings = new HashMap<>(postings); // Shed the table capacity left by removed terms
+            docByNoteId.replaceAll((noteId, doc) -> remap[doc]);
+            live = new BitSet(next);
+            live.set(0, next);
+            nextDoc = next;
+        }
+
+        List<Hit> search(List<String> terms, int limit) {
+            lock.readLock().lock();
+            try {
+                if (liveCount == 0) {
+                    return List.of();
+                }
+                float averageLength = Math.max(1f, (float) totalLength / liveCount);
+                float[] scores = new float[nextDoc];
+                // Documents with a non-zero score, so top-k selection skips the non-matching ones
+                int[] matched = new int[16];
+                int matchCount = 0;
+                for (String term : terms) {
+                    PostingList list = postings.get(term);
+                    if (list == null) {
+                        continue;
+                    }
+                    // Document frequency counts not-yet-compacted dead postings too; a slight
+                    // underestimate of the idf, bounded by the compaction threshold
+                    int df = Math.min(list.size, liveCount);
+                    float idf = (float) Math.log(1 + (liveCount - df + 0.5) / (df + 0.5));
+                    for (int i = 0; i < list.size; i++) {
+                        int doc = list.docs[i];
+                        if (!live.get(doc)) {
+                            continue;
+                        }
+                        int tf = list.freqs[i];
+                        float norm = K1 * (1 - B + B * lengths[doc] / averageLength);
+                        if (scores[doc] == 0) {
+                            if (matchCount == matched.length) {
+                                matched = Arrays.copyOf(matched, matchCount * 2);
+                            }
+                            matched[matchCount++] = doc;
+                        }
+                        scores[doc] += idf * tf * (K1 + 1) / (tf + norm);
+                    }
+                }
+                return topK(scores, matched, matchCount, limit);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        // Min-heap of document numbers; on equal scores the newer (higher) document wins
+        private List<Hit> topK(float[] scores, int[] matched, int matchCount, int limit) {
+            PriorityQueue<Integer> heap = new PriorityQueue<>(limit + 1, (a, b) -> {
+                int byScore = Float.compare(scores[a], scores[b]);
+                return byScore != 0 ? byScore : Integer.compare(a, b);
+            });
+            for (int m = 0; m < matchCount; m++) {
+                int doc = matched[m];
+                if (heap.size() < limit) {
+                    heap.add(doc);
+                } else {
+                    int weakest = heap.peek();
+                    if (scores[doc] > scores[weakest] || (scores[doc] == scores[weakest] && doc > weakest)) {
+                        heap.poll();
+                        heap.add(doc);
+                    }
+                }
+            }
+            Hit[] hits = new Hit[heap.size()];
+            for (int i = hits.length - 1; i >= 0; i--) {
+                int doc = heap.poll();
+                hits[i] = new Hit(noteIds[doc], scores[doc]);
+            }
+            return List.of(hits);
+        }
+
+        int liveCount() {
+            lock.readLock().lock();
+            try {
+                return liveCount;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+}
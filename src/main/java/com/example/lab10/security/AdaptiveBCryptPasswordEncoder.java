@@ -0,0 +1,65 @@
+package com.example.lab10.security;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt encoder whose cost can be derived from a latency budget on the current hardware,
+ * and which asks for a rehash whenever a stored hash was made with a lower cost.
+ */
+public class AdaptiveBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+    // Never calibrate below the long-standing default, however slow the node
+    static final int MIN_STRENGTH = 10;
+    static final int MAX_STRENGTH = 16;
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[aby]?\\$(\\d\\d)\\$");
+
+    private final int strength;
+
+    public AdaptiveBCryptPasswordEncoder(int strength) {
+        super(strength);
+        this.strength = strength;
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    /**
+     * Only weaker hashes are upgraded. Nodes calibrate independently and a restart can land on
+     * another cost, so rehashing stronger hashes too would rewrite them back and forth between
+     * nodes on every login. To lower the cost for good, set bcrypt-strength on every node.
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) < strength;
+    }
+
+    /**
+     * Measures a hash at MIN_STRENGTH and returns the highest cost whose hash still fits the
+     * budget. Each extra cost step doubles the work.
+     */
+    public static int calibrateStrength(long targetMillis) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(MIN_STRENGTH);
+        String hash = probe.encode("calibration"); // Also warms up the JIT
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            probe.matches("calibration", hash);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return strengthFor(best / 1_000_000.0, targetMillis);
+    }
+
+    static int strengthFor(double millisAtMinStrength, long targetMillis) {
+        int extraSteps = (int) Math.floor(Math.log(targetMillis / millisAtMinStrength) / Math.log(2));
+        return Math.max(MIN_STRENGTH, Math.min(MAX_STRENGTH, MIN_STRENGTH + extraSteps));
+    }
+}
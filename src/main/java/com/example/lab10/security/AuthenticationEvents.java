@@ -1,38 +1,48 @@
 package com.example.lab10.security;
 
-import com.example.lab10.util.LoggingUtils;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import com.example.lab10.audit.AuditEvent;
+import com.example.lab10.audit.AuditLog;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.context.event.EventListener;
 import org.springframework.security.authentication.event.AbstractAuthenticationFailureEvent;
 import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
 import org.springframework.security.authorization.event.AuthorizationDeniedEvent;
+import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 
+/**
+ * Forwards Spring Security events to the audit log. Only cheap field reads happen here;
+ * masking and formatting run on the audit writer thread.
+ */
 @Component
 public class AuthenticationEvents {
 
-    private static final Logger logger = LoggerFactory.getLogger(AuthenticationEvents.class);
+    private final AuditLog auditLog;
+
+    public AuthenticationEvents(AuditLog auditLog) {
+        this.auditLog = auditLog;
+    }
 
     @EventListener
     public void onSuccess(AuthenticationSuccessEvent event) {
-        logger.info("Login successful for user: {}", LoggingUtils.maskEmail(event.getAuthentication().getName()));
+        auditLog.record(AuditEvent.Type.LOGIN_SUCCESS, event.getAuthentication().getName());
     }
 
     @EventListener
     public void onFailure(AbstractAuthenticationFailureEvent event) {
-        logger.warn("WARN: Failed login attempt for user: {}", 
-                LoggingUtils.maskEmail(event.getAuthentication().getName()));
+        auditLog.record(AuditEvent.Type.LOGIN_FAILURE, event.getAuthentication().getName(),
+                event.getException().getClass().getSimpleName());
     }
 
     // For Authorization failures (403) - Spring Security 6+
     @EventListener
     public void onAuthorizationDenied(AuthorizationDeniedEvent<?> event) {
-        String source = event.getSource() != null ? event.getSource().toString() : "Unknown";
-        String user = event.getAuthentication() != null && event.getAuthentication().get().getName() != null 
-            ? LoggingUtils.maskEmail(event.getAuthentication().get().getName()) 
-            : "Anonymous";
-        
-        logger.warn("WARN: Unauthorized access attempt to [{}] by user: {}", source, user);
+        Authentication authentication = event.getAuthentication() != null ? event.getAuthentication().get() : null;
+        String user = authentication != null ? authentication.getName() : null;
+        // Resolve the target now: the request object is recycled once the response is sent
+        Object source = event.getSource();
+        String target = source instanceof HttpServletRequest request ? request.getRequestURI()
+                : source != null ? source.toString() : "Unknown";
+        auditLog.record(AuditEvent.Type.ACCESS_DENIED, user != null ? user : "Anonymous", target);
     }
 }
@@ -1,39 +1,64 @@
 package com.example.lab10.security;
 
+import com.example.lab10.audit.AuditEvent;
+import com.example.lab10.audit.AuditLog;
 import com.example.lab10.model.User;
 import com.example.lab10.repository.UserRepository;
-import com.example.lab10.util.LoggingUtils;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
 
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
+    private final AuditLog auditLog;
 
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(UserRepository userRepository, PrincipalCache principalCache, AuditLog auditLog) {
         this.userRepository = userRepository;
+        this.principalCache = principalCache;
+        this.auditLog = auditLog;
     }
 
-    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(CustomUserDetailsService.class);
-
     @Override
+    @Timed(value = "auth.user.lookup", description = "Users table lookups for logins and principal cache misses")
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        logger.info("CustomUserDetailsService: Load request received for email: {}", LoggingUtils.maskEmail(email));
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> {
-                    logger.warn("CustomUserDetailsService: Authentication failed - User record missing for email: {}",
-                            LoggingUtils.maskEmail(email));
+                    auditLog.record(AuditEvent.Type.USER_LOOKUP_FAILED, email);
                     return new UsernameNotFoundException("Invalid credentials.");
                 });
 
-        logger.info("CustomUserDetailsService: User identity verified and authorities mapped for user: {}", LoggingUtils.maskEmail(email));
-        return org.springframework.security.core.userdetails.User.builder()
-                .username(user.getEmail()) // Use email as username
-                .password(user.getPassword())
-                .roles(user.getRole().replace("ROLE_", "")) // Spring adds ROLE_ prefix automatically
-                .build();
+        auditLog.record(AuditEvent.Type.USER_LOOKUP, email);
+        // Use email as username; the id rides along so services don't have to look the user up again
+        return new AuthenticatedUser(user.getId(), user.getEmail(), user.getPassword(),
+                List.of(new SimpleGrantedAuthority(normalizeRole(user.getRole()))));
+    }
+
+    /**
+     * Called by DaoAuthenticationProvider after a successful login whose stored hash uses an
+     * outdated algorithm or cost; newPassword is already encoded with the current settings.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.updatePasswordByEmail(user.getUsername(), newPassword);
+        principalCache.invalidateAfterCommit(user.getUsername()); // Cached principal still carries the old hash
+        auditLog.record(AuditEvent.Type.PASSWORD_REHASHED, user.getUsername());
+
+        Long id = user instanceof AuthenticatedUser authenticatedUser ? authenticatedUser.getId() : null;
+        return new AuthenticatedUser(id, user.getUsername(), newPassword, user.getAuthorities());
+    }
+
+    static String normalizeRole(String role) {
+        return role.startsWith("ROLE_") ? role : "ROLE_" + role;
     }
 }
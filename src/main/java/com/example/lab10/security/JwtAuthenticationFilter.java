@@ -8,6 +8,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -16,6 +17,7 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -23,10 +25,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtils jwtUtils;
     private final CustomUserDetailsService userDetailsService;
+    private final PrincipalCache principalCache;
+    private final TokenRevocationRegistry revocations;
 
-    public JwtAuthenticationFilter(JwtUtils jwtUtils, CustomUserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtUtils jwtUtils, CustomUserDetailsService userDetailsService,
+            PrincipalCache principalCache, TokenRevocationRegistry revocations) {
         this.jwtUtils = jwtUtils;
         this.userDetailsService = userDetailsService;
+        this.principalCache = principalCache;
+        this.revocations = revocations;
     }
 
     @Override
@@ -34,15 +41,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                String username = jwtUtils.getUserNameFromJwtToken(jwt);
+            // One signature check per request (none for recently seen tokens)
+            JwtUtils.VerifiedJwt verified = jwt != null ? jwtUtils.verify(jwt).orElse(null) : null;
+            if (verified != null) {
+                // Current tokens carry id and roles, so identity needs no database or cache lookup;
+                // tokens minted before the uid claim still resolve through the principal cache
+                UserDetails userDetails = verified.userId() != null ? principalOf(verified)
+                        : principalCache.get(verified.subject(), userDetailsService::loadUserByUsername);
+                Long userId = userDetails instanceof AuthenticatedUser user ? user.getId() : null;
 
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                if (userId == null || !revocations.isRevoked(userId, verified.issuedAt())) {
+                    UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                            userDetails, null, userDetails.getAuthorities());
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                }
             }
         } catch (Exception e) {
             logger.error("Cannot set user authentication: {}", e.getMessage());
@@ -51,6 +65,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    private static AuthenticatedUser principalOf(JwtUtils.VerifiedJwt verified) {
+        List<SimpleGrantedAuthority> authorities = verified.roles().stream()
+                .map(role -> new SimpleGrantedAuthority(CustomUserDetailsService.normalizeRole(role)))
+                .toList();
+        // No password: this principal is only ever used for an already authenticated request
+        return new AuthenticatedUser(verified.userId(), verified.subject(), "", authorities);
+    }
+
     private String parseJwt(HttpServletRequest request) {
         String headerAuth = request.getHeader("Authorization");
 
@@ -3,12 +3,23 @@ package com.example.lab10.security;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Component
 public class JwtUtils {
@@ -16,40 +27,177 @@ public class JwtUtils {
 
     // 256-bit key for HMAC-SHA256
     private static final String JWT_SECRET = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
-    private static final int JWT_EXPIRATION_MS = 900000; // 15 minutes
+    static final int JWT_EXPIRATION_MS = 900000; // 15 minutes
+    private static final String ROLES_CLAIM = "roles";
+    private static final String USER_ID_CLAIM = "uid";
+    private static final int VERIFIED_CACHE_SIZE = 1024;
+
+    // Key and parser are immutable and thread-safe, so build them once
+    private final Key key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(JWT_SECRET));
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(key).build();
+
+    // LRU of recently verified tokens keyed by signature; a hit skips HMAC verification.
+    // Guarded by a ReentrantLock rather than synchronized so contended virtual threads park
+    // instead of pinning their carrier thread
+    private final Lock verifiedTokensLock = new ReentrantLock();
+    private final Map<String, CachedToken> verifiedTokens =
+            new LinkedHashMap<>(VERIFIED_CACHE_SIZE, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedToken> eldest) {
+                    return size() > VERIFIED_CACHE_SIZE;
+                }
+            };
+
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder verifications = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
 
     public String generateJwtToken(String username) {
-        return Jwts.builder()
-                .setSubject(username)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date((new Date()).getTime() + JWT_EXPIRATION_MS))
-                .signWith(key(), SignatureAlgorithm.HS256)
-                .compact();
+        return generateJwtToken(username, List.of());
     }
 
-    private Key key() {
-        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(JWT_SECRET));
+    public String generateJwtToken(String username, Collection<String> roles) {
+        return generateJwtToken(null, username, roles);
     }
 
-    public String getUserNameFromJwtToken(String token) {
-        return Jwts.parserBuilder().setSigningKey(key()).build()
-                .parseClaimsJws(token).getBody().getSubject();
+    /**
+     * Token that carries everything the API needs to know about the caller (id, email, roles),
+     * so JwtAuthenticationFilter can authenticate it without loading the user.
+     */
+    public String generateJwtToken(Long userId, String username, Collection<String> roles) {
+        Date now = new Date();
+        return Jwts.builder()
+                .setSubject(username)
+                .claim(USER_ID_CLAIM, userId)
+                .claim(ROLES_CLAIM, roles)
+                .setIssuedAt(now)
+                .setExpiration(new Date(now.getTime() + JWT_EXPIRATION_MS))
+                .signWith(key, SignatureAlgorithm.HS256)
+                .compact();
     }
 
-    public boolean validateJwtToken(String authToken) {
+    /**
+     * Verifies the token once and returns its claims, or empty if it is invalid or expired.
+     */
+    @Timed(value = "jwt.verify", description = "JWT verification, including verified-token cache hits")
+    public Optional<VerifiedJwt> verify(String token) {
+        String signature = signatureOf(token);
+        if (signature != null) {
+            CachedToken cached = cached(signature);
+            if (cached != null && cached.token().equals(token)) {
+                if (cached.claims().expiresAt().isAfter(Instant.now())) {
+                    cacheHits.increment();
+                    return Optional.of(cached.claims());
+                }
+                evict(signature);
+            }
+        }
+
         try {
-            Jwts.parserBuilder().setSigningKey(key()).build().parse(authToken);
-            return true;
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            if (claims.getExpiration() == null) {
+                logger.error("JWT token has no expiration");
+                rejections.increment();
+                return Optional.empty();
+            }
+            VerifiedJwt verified = new VerifiedJwt(claims.getSubject(), userIdOf(claims),
+                    claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                    claims.getExpiration().toInstant(), rolesOf(claims));
+            cache(signature, new CachedToken(token, verified));
+            verifications.increment();
+            return Optional.of(verified);
         } catch (MalformedJwtException e) {
             logger.error("Invalid JWT token: {}", e.getMessage());
         } catch (ExpiredJwtException e) {
             logger.error("JWT token is expired: {}", e.getMessage());
         } catch (UnsupportedJwtException e) {
             logger.error("JWT token is unsupported: {}", e.getMessage());
+        } catch (SignatureException e) {
+            logger.error("Invalid JWT signature: {}", e.getMessage());
         } catch (IllegalArgumentException e) {
             logger.error("JWT claims string is empty: {}", e.getMessage());
         }
 
-        return false;
+        rejections.increment();
+        return Optional.empty();
+    }
+
+    public String getUserNameFromJwtToken(String token) {
+        return verify(token).map(VerifiedJwt::subject)
+                .orElseThrow(() -> new MalformedJwtException("JWT token could not be verified"));
+    }
+
+    public boolean validateJwtToken(String authToken) {
+        return verify(authToken).isPresent();
+    }
+
+    public long cacheHitCount() {
+        return cacheHits.sum();
+    }
+
+    public long verifiedCount() {
+        return verifications.sum();
+    }
+
+    public long rejectedCount() {
+        return rejections.sum();
+    }
+
+    private CachedToken cached(String signature) {
+        verifiedTokensLock.lock();
+        try {
+            return verifiedTokens.get(signature); // Access-ordered: get() reorders, so it needs the lock too
+        } finally {
+            verifiedTokensLock.unlock();
+        }
+    }
+
+    private void cache(String signature, CachedToken token) {
+        verifiedTokensLock.lock();
+        try {
+            verifiedTokens.put(signature, token);
+        } finally {
+            verifiedTokensLock.unlock();
+        }
+    }
+
+    private void evict(String signature) {
+        verifiedTokensLock.lock();
+        try {
+            verifiedTokens.remove(signature);
+        } finally {
+            verifiedTokensLock.unlock();
+        }
+    }
+
+    private static String signatureOf(String token) {
+        if (token == null) {
+            return null;
+        }
+        int lastDot = token.lastIndexOf('.');
+        return lastDot > 0 && lastDot < token.length() - 1 ? token.substring(lastDot + 1) : null;
+    }
+
+    // Absent in tokens issued before the claim existed
+    private static Long userIdOf(Claims claims) {
+        return claims.get(USER_ID_CLAIM) instanceof Number id ? id.longValue() : null;
+    }
+
+    private static List<String> rolesOf(Claims claims) {
+        Object roles = claims.get(ROLES_CLAIM);
+        if (!(roles instanceof Collection<?> values)) {
+            return List.of();
+        }
+        return values.stream().map(String::valueOf).toList();
+    }
+
+    /**
+     * Claims extracted from a signature-verified, unexpired token. userId and issuedAt may be null
+     * for tokens minted without them.
+     */
+    public record VerifiedJwt(String subject, Long userId, Instant issuedAt, Instant expiresAt, List<String> roles) {
+    }
+
+    private record CachedToken(String token, VerifiedJwt claims) {
     }
 }
@@ -0,0 +1,130 @@
+package com.example.lab10.security;
+
+import com.example.lab10.exception.ServiceUnavailableException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Small fixed pool that runs all BCrypt work. Capping the threads caps the CPU a login
+ * burst can take from everything else; the bounded queue turns overload into a fast 503
+ * instead of a pile of request threads all waiting on hashes.
+ */
+@Component
+public class PasswordHashingExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final long maxWaitMillis;
+
+    private final LongAdder hashes = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+    private final LongAccumulator maxQueueWaitNanos = new LongAccumulator(Math::max, 0);
+
+    public PasswordHashingExecutor(@Value("${security.password-hashing.threads:0}") int threads,
+            @Value("${security.password-hashing.queue-capacity:16}") int queueCapacity,
+            @Value("${security.password-hashing.max-wait-ms:2000}") long maxWaitMillis) {
+        // 0 means half the cores, so hashing can never take every CPU from request handling
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    // Platform threads even in virtual-thread mode: the work is pure CPU, and the
+                    // waiting request thread is the one that should be cheap
+                    Thread thread = new Thread(runnable, "password-hash-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    /**
+     * Runs the hash on the pool and waits for the result.
+     *
+     * @throws ServiceUnavailableException if the queue is full or the result takes longer than max-wait-ms
+     */
+    public <T> T execute(Supplier<T> hashOperation) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                long waited = startedAt - submittedAt;
+                queueWaitNanos.add(waited);
+                maxQueueWaitNanos.accumulate(waited);
+                try {
+                    return hashOperation.get();
+                } finally {
+                    hashNanos.add(System.nanoTime() - startedAt);
+                    hashes.increment();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            throw new ServiceUnavailableException("Authentication service is busy, please retry");
+        }
+
+        try {
+            return future.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejections.increment();
+            throw new ServiceUnavailableException("Authentication service is busy, please retry");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted while waiting for password hashing");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public long hashCount() {
+        return hashes.sum();
+    }
+
+    public long rejectedCount() {
+        return rejections.sum();
+    }
+
+    public long totalHashNanos() {
+        return hashNanos.sum();
+    }
+
+    public long totalQueueWaitNanos() {
+        return queueWaitNanos.sum();
+    }
+
+    public long maxQueueWaitNanos() {
+        return maxQueueWaitNanos.get();
+    }
+
+    public int queueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int activeCount() {
+        return executor.getActiveCount();
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.lab10.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded, TTL-evicting cache of authenticated principals keyed by email.
+ * Lets the JWT filter resolve authorities without a users table query on every API call.
+ */
+@Component
+public class PrincipalCache {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final long ttlMillis;
+
+    // Bumped on every invalidation so a load racing with it is not cached
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public PrincipalCache(@Value("${security.principal-cache.max-size:10000}") int maxSize,
+            @Value("${security.principal-cache.ttl-ms:300000}") long ttlMillis) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Returns the cached principal for the email, loading and caching it on a miss.
+     */
+    public UserDetails get(String email, Function<String, UserDetails> loader) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(email);
+        if (entry != null) {
+            if (entry.expiresAt > now) {
+                hits.increment();
+                return entry.principal;
+            }
+            if (entries.remove(email, entry)) {
+                evictions.increment();
+            }
+        }
+
+        misses.increment();
+        long generation = invalidations.get();
+        UserDetails principal = loader.apply(email);
+
+        if (entries.size() >= maxSize) {
+            evict(now);
+        }
+        if (generation == invalidations.get()) {
+            entries.put(email, new Entry(principal, now + ttlMillis));
+        }
+        return principal;
+    }
+
+    /**
+     * Drops the cached principal, e.g. after a password or role change or logout.
+     */
+    public void invalidate(String email) {
+        if (email == null) {
+            return;
+        }
+        invalidations.incrementAndGet();
+        entries.remove(email);
+    }
+
+    /**
+     * Drops the cached principal once the surrounding transaction commits, or right away outside one.
+     * Invalidating earlier would let a concurrent miss reload the not yet committed row and cache it again.
+     */
+    public void invalidateAfterCommit(String email) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(email);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate(email);
+            }
+        });
+    }
+
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        entries.clear();
+    }
+
+    // Removes expired entries first; if still full, sheds arbitrary entries down to 90% capacity
+    private void evict(long now) {
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().expiresAt <= now) {
+                it.remove();
+                evictions.increment();
+            }
+        }
+
+        int target = maxSize - Math.max(1, maxSize / 10);
+        it = entries.values().iterator();
+        while (entries.size() > target && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions.increment();
+        }
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private record Entry(UserDetails principal, long expiresAt) {
+    }
+}
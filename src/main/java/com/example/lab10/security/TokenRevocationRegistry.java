@@ -0,0 +1,59 @@
+package com.example.lab10.security;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-user "tokens issued before" watermarks. Revoking a user invalidates every access token
+ * issued up to that moment without a token denylist or a database read on the request path.
+ * Watermarks are only needed for one access-token lifetime, after which every token they could
+ * reject has expired anyway, so the map stays as small as the number of recent revocations.
+ * <p>
+ * Held in memory: with several instances, a revocation only applies on the node that made it.
+ */
+@Component
+public class TokenRevocationRegistry {
+
+    private static final long SWEEP_INTERVAL_MS = 60000;
+
+    private final Map<Long, Long> revokedUpToMillis = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweep = new AtomicLong(System.currentTimeMillis());
+
+    /**
+     * Invalidates all access tokens issued to the user so far; called on sign-out.
+     */
+    public void revokeAll(Long userId) {
+        long now = System.currentTimeMillis();
+        revokedUpToMillis.merge(userId, now, Math::max);
+        sweep(now);
+    }
+
+    /**
+     * JWT iat has whole-second precision, so a token issued in the same second as a revocation counts
+     * as revoked even if it came just after. The client then has to sign in once more, which is
+     * preferable to letting a token from before the revocation through.
+     */
+    public boolean isRevoked(Long userId, Instant issuedAt) {
+        Long watermark = revokedUpToMillis.get(userId);
+        if (watermark == null) {
+            return false;
+        }
+        return issuedAt == null || issuedAt.toEpochMilli() <= watermark;
+    }
+
+    public int size() {
+        return revokedUpToMillis.size();
+    }
+
+    // At most one caller per interval pays for the sweep
+    private void sweep(long now) {
+        long last = lastSweep.get();
+        if (now - last >= SWEEP_INTERVAL_MS && lastSweep.compareAndSet(last, now)) {
+            revokedUpToMillis.values().removeIf(watermark -> now - watermark > JwtUtils.JWT_EXPIRATION_MS);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.lab10.service;
+
+import com.example.lab10.dto.BulkNoteOperation;
+import com.example.lab10.dto.BulkNoteResult;
+import com.example.lab10.dto.NoteDTO;
+import com.example.lab10.exception.BadRequestException;
+import com.example.lab10.model.Note;
+import com.example.lab10.repository.NoteRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Applies many note changes in one transaction, batching consecutive operations of the same type
+ * into one JDBC batch. Invalid operations are reported per item and skipped; the valid ones still run.
+ */
+@Service
+public class NoteBulkService {
+
+    public static final int MAX_OPERATIONS = 1000;
+
+    private final NoteRepository noteRepository;
+    private final NoteService noteService;
+    private final Validator validator;
+
+    public NoteBulkService(NoteRepository noteRepository, NoteService noteService, Validator validator) {
+        this.noteRepository = noteRepository;
+        this.noteService = noteService;
+        this.validator = validator;
+    }
+
+    /**
+     * Operations take effect in request order, so [DELETE 7, UPDATE 7] deletes the note and then
+     * reports the update as 404. Results come back in request order too.
+     */
+    @Transactional
+    public List<BulkNoteResult> apply(List<BulkNoteOperation> operations) {
+        if (operations == null || operations.isEmpty()) {
+            throw new BadRequestException("At least one operation is required");
+        }
+        if (operations.size() > MAX_OPERATIONS) {
+            throw new BadRequestException("At most " + MAX_OPERATIONS + " operations per request");
+        }
+        Long userId = noteService.getCurrentUserId();
+
+        List<BulkNoteResult> results = new ArrayList<>(operations.size());
+        // The current run of consecutive valid operations of one type; invalid ones in between change nothing
+        BulkNoteOperation.Type runType = null;
+        List<Integer> runIndexes = new ArrayList<>();
+        List<BulkNoteOperation> run = new ArrayList<>();
+
+        for (int i = 0; i < operations.size(); i++) {
+            BulkNoteOperation operation = operations.get(i);
+            String error = validate(operation);
+            if (error != null) {
+                results.add(new BulkNoteResult(i, operation == null ? null : operation.getId(), 400, error));
+                continue;
+            }
+            if (operation.getType() != runType && !run.isEmpty()) {
+                applyRun(runType, runIndexes, run, userId, results);
+                runIndexes.clear();
+                run.clear();
+            }
+            runType = operation.getType();
+            runIndexes.add(i);
+            run.add(operation);
+        }
+        if (!run.isEmpty()) {
+            applyRun(runType, runIndexes, run, userId, results);
+        }
+
+        results.sort(Comparator.comparingInt(BulkNoteResult::getIndex));
+        return results;
+    }
+
+    private void applyRun(BulkNoteOperation.Type type, List<Integer> indexes, List<BulkNoteOperation> run,
+            Long userId, List<BulkNoteResult> results) {
+        switch (type) {
+            case CREATE -> {
+                List<Note> creates = run.stream().map(operation -> toNote(operation, userId)).toList();
+                noteRepository.batchInsert(creates);
+                for (int j = 0; j < creates.size(); j++) {
+                    results.add(new BulkNoteResult(indexes.get(j), creates.get(j).getId(), 201, null));
+                }
+            }
+            case UPDATE -> {
+                List<Note> updates = run.stream().map(operation -> toNote(operation, userId)).toList();
+                int[] counts = noteRepository.batchUpdateByIdAndUserId(updates, userId);
+                addOwnedResults(results, indexes, updates.stream().map(Note::getId).toList(), counts, 200);
+            }
+            case DELETE -> {
+                List<Long> deletes = run.stream().map(BulkNoteOperation::getId).toList();
+                int[] counts = noteRepository.batchDeleteByIdAndUserId(deletes, userId);
+                addOwnedResults(results, indexes, deletes, counts, 204);
+            }
+        }
+    }
+
+    private String validate(BulkNoteOperation operation) {
+        if (operation == null || operation.getType() == null) {
+            return "Operation type is required";
+        }
+        if (operation.getType() != BulkNoteOperation.Type.CREATE && operation.getId() == null) {
+            return "Note id is required";
+        }
+        if (operation.getType() == BulkNoteOperation.Type.DELETE) {
+            return null;
+        }
+        NoteDTO dto = new NoteDTO();
+        dto.setTitle(operation.getTitle());
+        dto.setContent(operation.getContent());
+        Set<ConstraintViolation<NoteDTO>> violations = validator.validate(dto);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining("; "));
+    }
+
+    private static Note toNote(BulkNoteOperation operation, Long userId) {
+        Note note = new Note();
+        note.setId(operation.getId());
+        note.setTitle(operation.getTitle());
+        note.setContent(operation.getContent());
+        note.setUserId(userId);
+        return note;
+    }
+
+    // A zero count means the id is missing or belongs to another user; both look like 404
+    private static void addOwnedResults(List<BulkNoteResult> results, List<Integer> indexes, List<Long> ids,
+            int[] counts, int successStatus) {
+        for (int j = 0; j < ids.size(); j++) {
+            boolean applied = counts[j] != 0;
+            results.add(new BulkNoteResult(indexes.get(j), ids.get(j),
+                    applied ? successStatus : 404, applied ? null : "Note not found"));
+        }
+    }
+}
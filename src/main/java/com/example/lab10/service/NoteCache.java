@@ -0,0 +1,139 @@
+package com.example.lab10.service;
+
+import com.example.lab10.model.Note;
+import com.example.lab10.repository.NoteChangeListener;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of each user's note list for NoteService. Bounded by the approximate memory
+ * of the cached text rather than by entry count, since one user's notes can outweigh thousands of
+ * others'; Caffeine's W-TinyLFU policy decides which users to evict.
+ * <p>
+ * A user's entry is invalidated after each committed write to their notes (NoteChangeListener), on
+ * the writing thread, so the writer always reads its own write. Loads go through
+ * {@link Cache#get}, and an invalidation waits for a load of the same user in progress, so a load
+ * that read the table before the commit cannot put its stale result back afterwards.
+ * Callers get copies; the cached notes are never handed out.
+ */
+@Component
+public class NoteCache implements NoteChangeListener {
+
+    // Object headers, boxed id, LocalDateTime and list slot of a cached note, roughly
+    private static final int NOTE_OVERHEAD_BYTES = 160;
+    private static final int ENTRY_OVERHEAD_BYTES = 128;
+
+    private final boolean enabled;
+    private final Cache<Long, UserNotes> cache;
+
+    public NoteCache(@Value("${notes.cache.enabled:true}") boolean enabled,
+            @Value("${notes.cache.max-weight-bytes:67108864}") long maxWeightBytes,
+            @Value("${notes.cache.expire-after-write-seconds:300}") long expireAfterWriteSeconds) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeightBytes)
+                .weigher((Long userId, UserNotes notes) -> notes.weight())
+                .expireAfterWrite(Duration.ofSeconds(expireAfterWriteSeconds))
+                .recordStats()
+                .build();
+    }
+
+    public List<Note> getNotes(Long userId, Function<Long, List<Note>> loader) {
+        if (!enabled) {
+            return loader.apply(userId);
+        }
+        return copies(cache.get(userId, id -> new UserNotes(loader.apply(id))).notes());
+    }
+
+    /**
+     * Answered from the user's cached list when there is one. Otherwise {@code reader} fetches just
+     * this note; loading the whole list for a single note would cost more than it saves.
+     */
+    public Optional<Note> getNote(Long userId, Long noteId, Function<Long, Optional<Note>> reader) {
+        UserNotes notes = enabled ? cache.getIfPresent(userId) : null;
+        if (notes == null) {
+            return reader.apply(noteId);
+        }
+        return Optional.ofNullable(notes.byId().get(noteId)).map(NoteCache::copy);
+    }
+
+    public void invalidate(Long userId) {
+        cache.invalidate(userId);
+    }
+
+    @Override
+    public void noteSaved(Note note) {
+        invalidate(note.getUserId());
+    }
+
+    @Override
+    public void noteDeleted(Long userId, Long noteId) {
+        invalidate(userId);
+    }
+
+    /**
+     * Caffeine's own statistics (hits, misses, evictions, load times), for MetricsConfig.
+     */
+    public Cache<Long, ?> nativeCache() {
+        return cache;
+    }
+
+    private static List<Note> copies(List<Note> notes) {
+        List<Note> result = new ArrayList<>(notes.size());
+        for (Note note : notes) {
+            result.add(copy(note));
+        }
+        return result;
+    }
+
+    // Every field of Note: a cached read must look exactly like one from the table
+    private static Note copy(Note note) {
+        Note copy = new Note();
+        copy.setId(note.getId());
+        copy.setTitle(note.getTitle());
+        copy.setContent(note.getContent());
+        copy.setCreatedAt(note.getCreatedAt());
+        copy.setUpdatedAt(note.getUpdatedAt());
+        copy.setRevision(note.getRevision());
+        copy.setUserId(note.getUserId());
+        return copy;
+    }
+
+    private record UserNotes(List<Note> notes, Map<Long, Note> byId, int weight) {
+
+        UserNotes(List<Note> notes) {
+            this(List.copyOf(notes), index(notes), weigh(notes));
+        }
+
+        private static Map<Long, Note> index(List<Note> notes) {
+            Map<Long, Note> byId = new HashMap<>(notes.size() * 2);
+            for (Note note : notes) {
+                byId.put(note.getId(), note);
+            }
+            return byId;
+        }
+
+        // Strings are two bytes per char at worst; capped so one huge list cannot overflow the int weight
+        private static int weigh(List<Note> notes) {
+            long bytes = ENTRY_OVERHEAD_BYTES;
+            for (Note note : notes) {
+                bytes += NOTE_OVERHEAD_BYTES + 2L * (length(note.getTitle()) + length(note.getContent()));
+            }
+            return (int) Math.min(bytes, Integer.MAX_VALUE);
+        }
+
+        private static int length(String value) {
+            return value == null ? 0 : value.length();
+        }
+    }
+}
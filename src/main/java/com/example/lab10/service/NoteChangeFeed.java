@@ -0,0 +1,319 @@
+package com.example.lab10.service;
+
+import com.example.lab10.dto.NoteChangeEvent;
+import com.example.lab10.exception.ServiceUnavailableException;
+import com.example.lab10.model.Note;
+import com.example.lab10.repository.NoteChangeListener;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pushes every committed note change to the owner's open {@code /api/notes/stream} connections
+ * as Server-Sent Events. An idle subscriber holds no thread, only its SseEmitter and a small
+ * queue: writes (NoteChangeListener, after commit) serialize the event once and offer it to each
+ * of the user's queues without blocking, and a small shared pool writes the queued events out.
+ * <p>
+ * A subscriber whose queue overflows is too slow to keep up and is disconnected rather than
+ * buffered without bound; the client reconnects and re-reads /api/notes to catch up. A write to a
+ * socket that stopped reading blocks its pool thread, so a write still running after write-timeout-ms
+ * disconnects the subscriber too, and the pool gets a spare thread until that write gives up.
+ * One stalled client therefore never holds back everybody else's events. Periodic heartbeats keep
+ * proxies from closing idle connections and reveal clients that went away.
+ * <p>
+ * Held in memory: with several instances, a connection only sees writes made on its own node.
+ */
+@Service
+public class NoteChangeFeed implements NoteChangeListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteChangeFeed.class);
+
+    private static final Set<ResponseBodyEmitter.DataWithMediaType> CONNECTED =
+            SseEmitter.event().comment("connected").build();
+    private static final Set<ResponseBodyEmitter.DataWithMediaType> HEARTBEAT =
+            SseEmitter.event().comment("heartbeat").build();
+
+    private final ObjectMapper objectMapper;
+    private final int queueCapacity;
+    private final int maxPerUser;
+    private final int maxSubscribers;
+    private final long timeoutMs;
+    private final long writeTimeoutNanos;
+    private final int dispatchThreads;
+    private final ThreadPoolExecutor dispatcher;
+    // Extra dispatcher threads standing in for ones stuck in a stalled write
+    private int spareThreads;
+
+    private final Map<Long, Queue<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder slowConsumerDrops = new LongAdder();
+
+    public NoteChangeFeed(ObjectMapper objectMapper,
+            @Value("${notes.stream.queue-capacity:64}") int queueCapacity,
+            @Value("${notes.stream.max-per-user:8}") int maxPerUser,
+            @Value("${notes.stream.max-subscribers:10000}") int maxSubscribers,
+            @Value("${notes.stream.timeout-ms:1800000}") long timeoutMs,
+            @Value("${notes.stream.write-timeout-ms:10000}") long writeTimeoutMs,
+            @Value("${notes.stream.dispatch-threads:2}") int dispatchThreads) {
+        this.objectMapper = objectMapper;
+        this.queueCapacity = queueCapacity;
+        this.maxPerUser = maxPerUser;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMs = timeoutMs;
+        this.writeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(writeTimeoutMs);
+        this.dispatchThreads = dispatchThreads;
+        AtomicInteger threadNumber = new AtomicInteger();
+        // Fixed size in normal operation; the core size only grows while writes are stalled
+        this.dispatcher = new ThreadPoolExecutor(dispatchThreads, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "note-stream-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Opens a stream for the user. Past maxPerUser connections the user's oldest one is closed;
+     * past maxSubscribers in total the request is refused with 503.
+     */
+    public SseEmitter subscribe(Long userId) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new ServiceUnavailableException("Too many open note streams");
+        }
+        SseEmitter emitter = newEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(userId, emitter);
+        // compute, not computeIfAbsent + add: close() may be dropping the user's queue concurrently
+        Queue<Subscriber> userSubscribers = subscribers.compute(userId, (id, existing) -> {
+            Queue<Subscriber> queue = existing != null ? existing : new ConcurrentLinkedDeque<>();
+            queue.add(subscriber);
+            return queue;
+        });
+        while (userSubscribers.size() > maxPerUser) {
+            Subscriber oldest = userSubscribers.peek();
+            if (oldest != null) {
+                oldest.close();
+            }
+        }
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+        subscriber.offer(CONNECTED); // Flushes the response headers right away
+        return emitter;
+    }
+
+    // Overridden in tests to observe or stall what is written
+    SseEmitter newEmitter(long timeoutMs) {
+        return new SseEmitter(timeoutMs);
+    }
+
+    @Override
+    public void noteCreated(Note note) {
+        publish(note.getUserId(), new NoteChangeEvent(NoteChangeEvent.Type.CREATED, note.getId(), note));
+    }
+
+    @Override
+    public void noteSaved(Note note) {
+        publish(note.getUserId(), new NoteChangeEvent(NoteChangeEvent.Type.UPDATED, note.getId(), note));
+    }
+
+    @Override
+    public void noteDeleted(Long userId, Long noteId) {
+        publish(userId, new NoteChangeEvent(NoteChangeEvent.Type.DELETED, noteId, null));
+    }
+
+    private void publish(Long userId, NoteChangeEvent event) {
+        Queue<Subscriber> userSubscribers = subscribers.get(userId);
+        if (userSubscribers == null || userSubscribers.isEmpty()) {
+            return;
+        }
+        Set<ResponseBodyEmitter.DataWithMediaType> message;
+        try {
+            // Serialized once and shared by all of the user's connections
+            message = SseEmitter.event()
+                    .name("note")
+                    .data(objectMapper.writeValueAsString(event), MediaType.APPLICATION_JSON)
+                    .build();
+        } catch (JsonProcessingException e) {
+            logger.error("Could not serialize note change event: {}", e.getMessage());
+            return;
+        }
+        for (Subscriber subscriber : userSubscribers) {
+            subscriber.offer(message);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${notes.stream.heartbeat-ms:15000}")
+    public void sendHeartbeats() {
+        for (Queue<Subscriber> userSubscribers : subscribers.values()) {
+            for (Subscriber subscriber : userSubscribers) {
+                subscriber.offer(HEARTBEAT);
+            }
+        }
+    }
+
+    /**
+     * Disconnects subscribers whose current write has been blocked for longer than write-timeout-ms.
+     */
+    @Scheduled(fixedDelayString = "${notes.stream.write-check-ms:1000}")
+    public void abandonStalledWrites() {
+        long now = System.nanoTime();
+        for (Queue<Subscriber> userSubscribers : subscribers.values()) {
+            for (Subscriber subscriber : userSubscribers) {
+                subscriber.abandonIfStalled(now);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.values().forEach(userSubscribers -> userSubscribers.forEach(Subscriber::close));
+        dispatcher.shutdown(); // Lets the queued completions run; stalled writes cannot hold up exit (daemon threads)
+    }
+
+    public int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    public long sentCount() {
+        return sent.sum();
+    }
+
+    public long slowConsumerDropCount() {
+        return slowConsumerDrops.sum();
+    }
+
+    private synchronized void resizeDispatcher(int delta) {
+        spareThreads += delta;
+        dispatcher.setCorePoolSize(dispatchThreads + spareThreads);
+    }
+
+    private final class Subscriber {
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final Queue<Set<ResponseBodyEmitter.DataWithMediaType>> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final AtomicBoolean completed = new AtomicBoolean();
+        private final AtomicBoolean holdsSpareThread = new AtomicBoolean();
+        // System.nanoTime() when the write in progress started, 0 between writes
+        private volatile long sendStartedAt;
+
+        Subscriber(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        // Called on writing and scheduler threads: never blocks
+        void offer(Set<ResponseBodyEmitter.DataWithMediaType> message) {
+            if (closed.get()) {
+                return;
+            }
+            if (!queue.offer(message)) {
+                slowConsumerDrops.increment();
+                close();
+                return;
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    dispatcher.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false); // Shutting down
+                    if (closed.get()) {
+                        complete();
+                    }
+                }
+            }
+        }
+
+        // At most one drain per subscriber runs at a time, so events keep their order. The drain is also
+        // the only place the emitter is completed: completing waits for a send in progress, so doing it
+        // from anywhere else would block on a stalled client
+        private void drain() {
+            try {
+                Set<ResponseBodyEmitter.DataWithMediaType> message;
+                while (!closed.get() && (message = queue.poll()) != null) {
+                    sendStartedAt = System.nanoTime();
+                    try {
+                        emitter.send(message);
+                    } finally {
+                        sendStartedAt = 0;
+                    }
+                    sent.increment();
+                }
+            } catch (IOException | IllegalStateException e) {
+                close(); // Client went away or the emitter already completed
+            } finally {
+                if (closed.get()) {
+                    complete();
+                }
+                if (holdsSpareThread.compareAndSet(true, false)) {
+                    resizeDispatcher(-1); // The stalled write is over, this thread is back in the pool
+                }
+                draining.set(false);
+            }
+            // An offer or a close may have landed after the last check but before draining was cleared
+            if (closed.get() ? !completed.get() : !queue.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        void abandonIfStalled(long now) {
+            long startedAt = sendStartedAt;
+            if (startedAt != 0 && now - startedAt > writeTimeoutNanos && !closed.get()
+                    && holdsSpareThread.compareAndSet(false, true)) {
+                resizeDispatcher(1);
+                slowConsumerDrops.increment();
+                close();
+            }
+        }
+
+        void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            subscribers.computeIfPresent(userId, (id, userSubscribers) -> {
+                userSubscribers.remove(this);
+                return userSubscribers.isEmpty() ? null : userSubscribers;
+            });
+            subscriberCount.decrementAndGet();
+            queue.clear();
+            // Completes right away when idle; a drain in progress completes once its send returns
+            scheduleDrain();
+        }
+
+        private void complete() {
+            if (completed.compareAndSet(false, true)) {
+                emitter.complete();
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.lab10.service;
+
+import com.example.lab10.exception.BadRequestException;
+import com.example.lab10.model.Note;
+import com.example.lab10.repository.NoteRepository;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes a user's notes straight from the JDBC cursor to an output stream,
+ * so an export never holds more than one row in memory.
+ */
+@Service
+public class NoteExportService {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format parse(String value) {
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new BadRequestException("Unsupported export format: " + value);
+        }
+    }
+
+    private final NoteRepository noteRepository;
+
+    public NoteExportService(NoteRepository noteRepository) {
+        this.noteRepository = noteRepository;
+    }
+
+    public void export(Long userId, Format format, OutputStream out) throws IOException {
+        try {
+            if (format == Format.CSV) {
+                writeCsv(userId, out);
+            } else {
+                writeNdjson(userId, out);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause(); // Client went away mid-export
+        }
+    }
+
+    private void writeNdjson(Long userId, OutputStream out) throws IOException {
+        try (JsonGenerator json = JSON_FACTORY.createGenerator(out)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+            noteRepository.streamByUserId(userId, note -> {
+                try {
+                    json.writeStartObject();
+                    json.writeNumberField("id", note.getId());
+                    json.writeStringField("title", note.getTitle());
+                    json.writeStringField("content", note.getContent());
+                    json.writeStringField("createdAt", note.getCreatedAt().toString());
+                    json.writeEndObject();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            json.writeRaw('\n');
+        }
+    }
+
+    private void writeCsv(Long userId, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("id,title,content,created_at\r\n");
+        noteRepository.streamByUserId(userId, note -> {
+            try {
+                writeCsvRow(writer, note);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.flush();
+    }
+
+    private static void writeCsvRow(Writer writer, Note note) throws IOException {
+        writer.write(Long.toString(note.getId()));
+        writer.write(',');
+        writeCsvField(writer, note.getTitle());
+        writer.write(',');
+        writeCsvField(writer, note.getContent());
+        writer.write(',');
+        writer.write(note.getCreatedAt().toString());
+        writer.write("\r\n");
+    }
+
+    // RFC 4180 quoting, plus a leading quote on formula-like values so spreadsheets don't evaluate them
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        writer.write('"');
+        if (!value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0) {
+            writer.write('\'');
+        }
+        writer.write(value.indexOf('"') < 0 ? value : value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
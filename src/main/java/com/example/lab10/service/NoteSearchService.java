@@ -0,0 +1,80 @@
+package com.example.lab10.service;
+
+import com.example.lab10.dto.NoteSearchHit;
+import com.example.lab10.exception.BadRequestException;
+import com.example.lab10.model.Note;
+import com.example.lab10.repository.NoteRepository;
+import com.example.lab10.search.NoteSearchIndex;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Ranked search over the current user's notes. The index only yields note ids; the notes
+ * themselves are read back from the table, so results always show committed values.
+ */
+@Service
+public class NoteSearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteSearchService.class);
+
+    public static final int DEFAULT_LIMIT = 20;
+
+    private final NoteRepository noteRepository;
+    private final NoteSearchIndex noteSearchIndex;
+    private final NoteService noteService;
+
+    public NoteSearchService(NoteRepository noteRepository, NoteSearchIndex noteSearchIndex,
+            NoteService noteService) {
+        this.noteRepository = noteRepository;
+        this.noteSearchIndex = noteSearchIndex;
+        this.noteService = noteService;
+    }
+
+    /**
+     * Runs before the web server accepts requests, so no write can slip in between the scan
+     * and the index going live.
+     */
+    @PostConstruct
+    public void rebuildIndex() {
+        long start = System.nanoTime();
+        noteSearchIndex.clear();
+        noteRepository.streamAll(noteSearchIndex::noteSaved);
+        logger.info("Indexed {} notes for search in {} ms", noteSearchIndex.documentCount(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    public List<NoteSearchHit> search(String query, Integer limit) {
+        if (query == null || query.isBlank()) {
+            throw new BadRequestException("Search query must not be empty");
+        }
+        int max = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, NoteService.MAX_PAGE_SIZE));
+        Long userId = noteService.getCurrentUserId();
+
+        List<NoteSearchIndex.Hit> hits = noteSearchIndex.search(userId, query, max);
+        if (hits.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Note> notes = noteRepository.findByIdsAndUserId(
+                        hits.stream().map(NoteSearchIndex.Hit::noteId).toList(), userId)
+                .stream()
+                .collect(Collectors.toMap(Note::getId, Function.identity()));
+
+        List<NoteSearchHit> results = new ArrayList<>(hits.size());
+        for (NoteSearchIndex.Hit hit : hits) {
+            Note note = notes.get(hit.noteId());
+            if (note != null) { // Deleted after the index was read
+                results.add(new NoteSearchHit(note, hit.score()));
+            }
+        }
+        return results;
+    }
+}
@@ -1,72 +1,139 @@
 package com.example.lab10.service;
 
+import com.example.lab10.dto.NoteChanges;
+import com.example.lab10.dto.NoteCursor;
 import com.example.lab10.dto.NoteDTO;
+import com.example.lab10.dto.NotePage;
+import com.example.lab10.exception.BadRequestException;
 import com.example.lab10.model.Note;
+import com.example.lab10.model.NoteTombstone;
 import com.example.lab10.model.User;
 import com.example.lab10.repository.NoteRepository;
 import com.example.lab10.repository.UserRepository;
+import com.example.lab10.security.AuthenticatedUser;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 @Service
 public class NoteService {
 
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+    public static final int DEFAULT_CHANGES_LIMIT = 100;
+    public static final int MAX_CHANGES_LIMIT = 500;
+
     private final NoteRepository noteRepository;
     private final UserRepository userRepository;
+    private final NoteCache noteCache;
 
-    public NoteService(NoteRepository noteRepository, UserRepository userRepository) {
+    // Writes need no explicit invalidation: NoteCache hears about every committed note write from NoteRepository
+    public NoteService(NoteRepository noteRepository, UserRepository userRepository, NoteCache noteCache) {
         this.noteRepository = noteRepository;
         this.userRepository = userRepository;
+        this.noteCache = noteCache;
     }
 
-    private User getCurrentUser() {
-        String email = ((UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal())
-                .getUsername();
-        return userRepository.findByEmail(email)
+    public Long getCurrentUserId() {
+        UserDetails principal = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        if (principal instanceof AuthenticatedUser authenticatedUser) {
+            return authenticatedUser.getId();
+        }
+        // Sessions created before the principal carried an id
+        return userRepository.findByEmail(principal.getUsername())
+                .map(User::getId)
                 .orElseThrow(() -> new RuntimeException("Current user not found"));
     }
 
-    public void createNote(NoteDTO noteDTO) {
-        User user = getCurrentUser();
+    public Note createNote(NoteDTO noteDTO) {
         Note note = new Note();
         note.setTitle(noteDTO.getTitle());
         note.setContent(noteDTO.getContent());
         note.setCreatedAt(LocalDateTime.now());
-        note.setUserId(user.getId());
-        noteRepository.save(note);
+        note.setUserId(getCurrentUserId());
+        return noteRepository.save(note);
     }
 
     public List<Note> getMyNotes() {
-        User user = getCurrentUser();
-        return noteRepository.findByUserId(user.getId());
+        return noteCache.getNotes(getCurrentUserId(), noteRepository::findByUserId);
     }
 
-    public Note getNoteById(Long id) {
-        Note note = noteRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Note not found"));
+    public NotePage getMyNotesPage(String cursor, Integer limit) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        NoteCursor after = cursor == null || cursor.isBlank() ? null : NoteCursor.decode(cursor);
 
-        User currentUser = getCurrentUser();
-        // Security: Return 404 instead of 403 to prevent information disclosure
-        if (!note.getUserId().equals(currentUser.getId())) {
-            throw new RuntimeException("Note not found");
+        // Fetch one extra row to learn whether another page exists
+        List<Note> notes = noteRepository.findPageByUserId(getCurrentUserId(), after, pageSize + 1);
+        if (notes.size() <= pageSize) {
+            return new NotePage(notes, null);
         }
-        return note;
+        List<Note> page = notes.subList(0, pageSize);
+        return new NotePage(page, NoteCursor.after(page.get(pageSize - 1)).encode());
     }
 
-    public void updateNote(Long id, NoteDTO noteDTO) {
-        Note note = getNoteById(id); // Checks ownership
-        note.setTitle(noteDTO.getTitle());
-        note.setContent(noteDTO.getContent());
-        noteRepository.save(note);
+    /**
+     * Notes written and deleted after revision {@code since} (0 for a first sync), oldest change first.
+     * Both tables are read up to the user's committed revision, so a write committing in between
+     * lands entirely in the next call instead of half in this one.
+     */
+    public NoteChanges getChangesSince(Long since, Integer limit) {
+        long after = since == null ? 0 : since;
+        if (after < 0) {
+            throw new BadRequestException("since must not be negative");
+        }
+        int max = limit == null ? DEFAULT_CHANGES_LIMIT : Math.max(1, Math.min(limit, MAX_CHANGES_LIMIT));
+        Long userId = getCurrentUserId();
+        long upTo = noteRepository.currentRevision(userId);
+
+        // One extra row from each side tells whether anything is left after this batch
+        List<Note> notes = noteRepository.findChangedSince(userId, after, upTo, max + 1);
+        // A client starting from scratch has nothing to delete
+        List<NoteTombstone> tombstones = after == 0
+                ? List.of() : noteRepository.findTombstonesSince(userId, after, upTo, max + 1);
+
+        List<Note> changed = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        long revision = after;
+        int n = 0;
+        int t = 0;
+        while (n < notes.size() || t < tombstones.size()) {
+            boolean nextIsNote = t == tombstones.size()
+                    || (n < notes.size() && notes.get(n).getRevision() < tombstones.get(t).getRevision());
+            long next = nextIsNote ? notes.get(n).getRevision() : tombstones.get(t).getRevision();
+            if (changed.size() + deleted.size() == max) {
+                return new NoteChanges(changed, deleted, revision, true);
+            }
+            if (nextIsNote) {
+                changed.add(notes.get(n++));
+            } else {
+                deleted.add(tombstones.get(t++).getNoteId());
+            }
+            revision = next;
+        }
+        return new NoteChanges(changed, deleted, upTo, false);
+    }
+
+    // Ownership is part of every query below: someone else's note looks exactly like a missing one,
+    // so callers get 404 instead of 403 and learn nothing about other users' ids
+    public Note getNoteById(Long id) {
+        Long userId = getCurrentUserId();
+        return noteCache.getNote(userId, id, noteId -> noteRepository.findByIdAndUserId(noteId, userId))
+                .orElseThrow(() -> new RuntimeException("Note not found"));
+    }
+
+    public Note updateNote(Long id, NoteDTO noteDTO) {
+        return noteRepository.updateByIdAndUserId(id, getCurrentUserId(), noteDTO.getTitle(), noteDTO.getContent())
+                .orElseThrow(() -> new RuntimeException("Note not found"));
     }
 
     public void deleteNote(Long id) {
-        Note note = getNoteById(id); // Checks ownership
-        noteRepository.deleteByIdAndUserId(note.getId(), note.getUserId());
+        if (noteRepository.deleteByIdAndUserId(id, getCurrentUserId()) == 0) {
+            throw new RuntimeException("Note not found");
+        }
     }
 }
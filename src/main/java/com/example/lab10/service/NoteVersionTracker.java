@@ -0,0 +1,67 @@
+package com.example.lab10.service;
+
+import com.example.lab10.model.Note;
+import com.example.lab10.repository.NoteChangeListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-user change counter for notes, bumped after every committed note write, so controllers can
+ * answer conditional GETs (ETag / Last-Modified) without reading the notes themselves.
+ * <p>
+ * Counters live in memory and restart at zero, so the ETag also carries this process's start
+ * time: an ETag handed out before a restart never matches one handed out after it. Read the
+ * version before the notes, never after: a write that lands in between then only causes one
+ * extra full response instead of a stale cached one.
+ * <p>
+ * Last-Modified and If-Modified-Since have whole-second precision, so every write moves the time
+ * into a later second, even ahead of the clock while writes come faster than one per second.
+ * Otherwise a second write within the same second would still be answered 304.
+ */
+@Component
+public class NoteVersionTracker implements NoteChangeListener {
+
+    public record NoteVersion(String etag, long lastModifiedMillis) {
+    }
+
+    private record Counter(long value, long lastModifiedMillis) {
+    }
+
+    private final long startedMillis = System.currentTimeMillis();
+    private final String epoch = Long.toString(startedMillis, 36);
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * The user id is part of the ETag, so a browser shared by two accounts cannot revalidate one
+     * user's cached page with the other's version.
+     */
+    public NoteVersion current(Long userId) {
+        Counter counter = counters.get(userId);
+        if (counter == null) {
+            // Nothing written since startup; whatever is stored is at least this old
+            return new NoteVersion("n" + userId + "-" + epoch + "-0", startedMillis);
+        }
+        return new NoteVersion("n" + userId + "-" + epoch + "-" + counter.value(), counter.lastModifiedMillis());
+    }
+
+    @Override
+    public void noteSaved(Note note) {
+        bump(note.getUserId());
+    }
+
+    @Override
+    public void noteDeleted(Long userId, Long noteId) {
+        bump(userId);
+    }
+
+    private void bump(Long userId) {
+        long now = System.currentTimeMillis();
+        counters.compute(userId, (id, counter) -> {
+            long previous = counter == null ? startedMillis : counter.lastModifiedMillis();
+            long value = counter == null ? 1 : counter.value() + 1;
+            return new Counter(value, Math.max(previous - previous % 1000 + 1000, now));
+        });
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.lab10.service;
+
+import com.example.lab10.repository.RefreshTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Background sweeper for expired refresh tokens. Deletes in fixed-size batches, each
+ * committed on its own, so the table never sees one long-running delete.
+ */
+@Service
+public class RefreshTokenPurgeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenPurgeService.class);
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final LongAdder purged = new LongAdder();
+
+    public RefreshTokenPurgeService(RefreshTokenRepository refreshTokenRepository,
+            @Value("${refresh-token.purge.enabled:true}") boolean enabled,
+            @Value("${refresh-token.purge.batch-size:1000}") int batchSize,
+            @Value("${refresh-token.purge.max-batches-per-run:100}") int maxBatchesPerRun) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+    }
+
+    @Scheduled(initialDelayString = "${refresh-token.purge.initial-delay-ms:60000}",
+            fixedDelayString = "${refresh-token.purge.interval-ms:600000}")
+    public void scheduledPurge() {
+        if (enabled) {
+            purgeExpired(Instant.now());
+        }
+    }
+
+    /**
+     * Not transactional on purpose: every batch commits before the next one starts.
+     * A run stops early once a batch comes back short, or after maxBatchesPerRun.
+     */
+    public PurgeResult purgeExpired(Instant cutoff) {
+        long runStart = System.nanoTime();
+        int batches = 0;
+        long rows = 0;
+        int deleted;
+        do {
+            long batchStart = System.nanoTime();
+            deleted = refreshTokenRepository.deleteExpiredBatch(cutoff, batchSize);
+            batches++;
+            rows += deleted;
+            purged.add(deleted);
+            logger.debug("Refresh token purge batch {}: {} rows in {} ms", batches, deleted,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - batchStart));
+        } while (deleted == batchSize && batches < maxBatchesPerRun);
+
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - runStart);
+        if (rows > 0) {
+            logger.info("Purged {} expired refresh tokens in {} batches ({} ms)", rows, batches, elapsedMs);
+        }
+        if (deleted == batchSize) {
+            logger.warn("Refresh token purge stopped after {} batches; backlog remains for the next run", batches);
+        }
+        return new PurgeResult(batches, rows, elapsedMs);
+    }
+
+    /**
+     * Total tokens purged since startup, for monitoring.
+     */
+    public long purgedCount() {
+        return purged.sum();
+    }
+
+    public record PurgeResult(int batches, long rows, long elapsedMs) {
+    }
+}
@@ -3,6 +3,9 @@ package com.example.lab10.service;
 import com.example.lab10.model.RefreshToken;
 import com.example.lab10.repository.RefreshTokenRepository;
 import com.example.lab10.repository.UserRepository;
+import com.example.lab10.security.PrincipalCache;
+import com.example.lab10.security.TokenRevocationRegistry;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -18,10 +21,15 @@ public class RefreshTokenService {
 
     private final RefreshTokenRepository refreshTokenRepository;
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
+    private final TokenRevocationRegistry tokenRevocations;
 
-    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository, UserRepository userRepository) {
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository, UserRepository userRepository,
+            PrincipalCache principalCache, TokenRevocationRegistry tokenRevocations) {
         this.refreshTokenRepository = refreshTokenRepository;
         this.userRepository = userRepository;
+        this.principalCache = principalCache;
+        this.tokenRevocations = tokenRevocations;
     }
 
     public Optional<RefreshToken> findByToken(String token) {
@@ -46,6 +54,17 @@ public class RefreshTokenService {
         return refreshToken;
     }
 
+    /**
+     * Invalidates the used token and issues its replacement in one transaction, so a failure
+     * can never leave the user with neither or both.
+     */
+    @Transactional
+    @Timed(value = "auth.refresh.rotation", description = "Refresh token rotations (delete used, issue new)")
+    public RefreshToken rotate(RefreshToken used) {
+        refreshTokenRepository.delete(used);
+        return createRefreshToken(used.getUserId());
+    }
+
     public RefreshToken verifyExpiration(RefreshToken token) {
         if (token.getExpiryDate().compareTo(Instant.now()) < 0) {
             refreshTokenRepository.delete(token);
@@ -57,6 +76,10 @@ public class RefreshTokenService {
     @Transactional
     public void deleteByUserId(Long userId) {
         refreshTokenRepository.deleteByUserId(userId);
+        tokenRevocations.revokeAll(userId); // Outstanding access tokens die with the refresh tokens
+        // Full sign-out: force the next API call to re-resolve the principal
+        userRepository.findById(userId)
+                .ifPresent(user -> principalCache.invalidateAfterCommit(user.getEmail()));
     }
 
     @Transactional
@@ -2,6 +2,8 @@ package com.example.lab10.service;
 
 import com.example.lab10.model.User;
 import com.example.lab10.repository.UserRepository;
+import com.example.lab10.security.PrincipalCache;
+import com.example.lab10.security.TokenRevocationRegistry;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -14,10 +16,15 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final PrincipalCache principalCache;
+    private final TokenRevocationRegistry tokenRevocations;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder,
+            PrincipalCache principalCache, TokenRevocationRegistry tokenRevocations) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.principalCache = principalCache;
+        this.tokenRevocations = tokenRevocations;
     }
 
     @Transactional
@@ -33,6 +40,28 @@ public class UserService {
         return userRepository.save(user); // JPA handles persistence and returns saved entity
     }
 
+    @Transactional
+    public User changePassword(Long userId, String rawPassword) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        user.setPassword(passwordEncoder.encode(rawPassword));
+        User saved = userRepository.save(user);
+        principalCache.invalidateAfterCommit(saved.getEmail()); // Cached principal still carries the old hash
+        tokenRevocations.revokeAll(saved.getId()); // Sessions opened with the old password end here
+        return saved;
+    }
+
+    @Transactional
+    public User changeRole(Long userId, String role) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        user.setRole(role);
+        User saved = userRepository.save(user);
+        principalCache.invalidateAfterCommit(saved.getEmail()); // Cached authorities are stale now
+        tokenRevocations.revokeAll(saved.getId()); // Access tokens carry the old role claim
+        return saved;
+    }
+
     public Optional<User> findByEmail(String email) {
         return userRepository.findByEmail(email);
     }
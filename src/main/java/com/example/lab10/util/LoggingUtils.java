@@ -3,9 +3,15 @@ package com.example.lab10.util;
 /**
  * Utility class for secure logging practices.
  * Masks sensitive information like emails and usernames to prevent credential leakage.
+ * <p>
+ * Three forms of each mask: {@code maskX} returns a String, {@code appendMaskedX} writes into a
+ * caller's StringBuilder without intermediate strings, and {@code maskedX} wraps the value for
+ * SLF4J so masking only runs if the log line is actually written.
  */
 public class LoggingUtils {
 
+    private static final String MASK = "***";
+
     /**
      * Masks an email address for logging purposes.
      * Example: "user@example.com" becomes "u***@e***.com"
@@ -14,34 +20,38 @@ public class LoggingUtils {
      * @return masked email or "***" if null/empty
      */
     public static String maskEmail(String email) {
-        if (email == null || email.isEmpty()) {
-            return "***";
+        if (email == null || email.indexOf('@') <= 0) {
+            return MASK; // Shared constant, nothing to build
         }
-        
-        int atIndex = email.indexOf('@');
+        return appendMaskedEmail(new StringBuilder(16), email).toString();
+    }
+
+    /**
+     * Appends the masked form of the email (see {@link #maskEmail}) to {@code out}.
+     *
+     * @return {@code out}
+     */
+    public static StringBuilder appendMaskedEmail(StringBuilder out, String email) {
+        int atIndex = email == null ? -1 : email.indexOf('@');
         if (atIndex <= 0) {
-            // Invalid email format, mask completely
-            return "***";
+            // Null, empty or invalid email format, mask completely
+            return out.append(MASK);
+        }
+
+        // Local part: first char + ***
+        out.append(email.charAt(0)).append(MASK).append('@');
+
+        // Domain: first char + *** + last part after last dot
+        int domainStart = atIndex + 1;
+        if (domainStart == email.length()) {
+            return out.append(MASK);
         }
-        
-        String localPart = email.substring(0, atIndex);
-        String domain = email.substring(atIndex + 1);
-        
-        // Mask local part: show first char + ***
-        String maskedLocal = localPart.length() > 0 
-            ? localPart.charAt(0) + "***" 
-            : "***";
-        
-        // Mask domain: show first char + *** + last part after last dot
-        int lastDot = domain.lastIndexOf('.');
-        String maskedDomain;
-        if (lastDot > 0) {
-            maskedDomain = domain.charAt(0) + "***" + domain.substring(lastDot);
-        } else {
-            maskedDomain = domain.charAt(0) + "***";
+        out.append(email.charAt(domainStart)).append(MASK);
+        int lastDot = email.lastIndexOf('.');
+        if (lastDot > domainStart) {
+            out.append(email, lastDot, email.length());
         }
-        
-        return maskedLocal + "@" + maskedDomain;
+        return out;
     }
 
     /**
@@ -52,14 +62,44 @@ public class LoggingUtils {
      * @return masked username
      */
     public static String maskUsername(String username) {
-        if (username == null || username.isEmpty()) {
-            return "***";
+        if (username == null || username.length() <= 2) {
+            return MASK;
         }
-        
-        if (username.length() <= 2) {
-            return "***";
+        // One substring plus an indified concat: already minimal for a String result
+        return username.substring(0, 2) + MASK;
+    }
+
+    /**
+     * Appends the masked form of the username (see {@link #maskUsername}) to {@code out}.
+     *
+     * @return {@code out}
+     */
+    public static StringBuilder appendMaskedUsername(StringBuilder out, String username) {
+        if (username == null || username.length() <= 2) {
+            return out.append(MASK);
+        }
+        return out.append(username, 0, 2).append(MASK);
+    }
+
+    /**
+     * Log argument that masks the email only when SLF4J formats the message, so
+     * {@code logger.debug("... {}", maskedEmail(email))} costs nothing when debug is off.
+     */
+    public static Object maskedEmail(String email) {
+        return new Masked(email, true);
+    }
+
+    /**
+     * Log argument that masks the username only when SLF4J formats the message.
+     */
+    public static Object maskedUsername(String username) {
+        return new Masked(username, false);
+    }
+
+    private record Masked(String value, boolean email) {
+        @Override
+        public String toString() {
+            return email ? maskEmail(value) : maskUsername(value);
         }
-        
-        return username.substring(0, 2) + "***";
     }
 }
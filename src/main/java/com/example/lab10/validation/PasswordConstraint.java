@@ -4,6 +4,10 @@ import jakarta.validation.Constraint;
 import jakarta.validation.Payload;
 import java.lang.annotation.*;
 
+/**
+ * Password policy, checked in one pass by {@link PasswordValidator}. Defaults require 8+ characters
+ * with a digit, a lower and an upper case ASCII letter and one of {@link #specials()}.
+ */
 @Documented
 @Constraint(validatedBy = PasswordValidator.class)
 @Target({ElementType.FIELD, ElementType.METHOD})
@@ -12,4 +16,26 @@ public @interface PasswordConstraint {
     String message() default "Invalid password";
     Class<?>[] groups() default {};
     Class<? extends Payload>[] payload() default {};
+
+    /**
+     * Minimum length in characters.
+     */
+    int min() default PasswordValidator.DEFAULT_MIN_LENGTH;
+
+    /**
+     * Maximum length in UTF-8 bytes: BCrypt ignores everything past 72 bytes, so a longer password
+     * would be accepted but only partly checked at login. Put this constraint only where a password
+     * is chosen (registration, password change), never on login, so existing longer passwords still work.
+     */
+    int max() default PasswordValidator.DEFAULT_MAX_LENGTH;
+
+    boolean requireDigit() default true;
+    boolean requireLowercase() default true;
+    boolean requireUppercase() default true;
+    boolean requireSpecial() default true;
+
+    /**
+     * Characters that satisfy requireSpecial. Other characters are allowed but do not count.
+     */
+    String specials() default PasswordValidator.DEFAULT_SPECIALS;
 }
@@ -3,10 +3,40 @@ package com.example.lab10.validation;
 import jakarta.validation.ConstraintValidator;
 import jakarta.validation.ConstraintValidatorContext;
 
+/**
+ * Single-pass scanner for {@link PasswordConstraint}: the length bound is checked before any character
+ * is read, and every character is classified once with no regex and no allocation. The upper bound
+ * counts UTF-8 bytes, the unit BCrypt truncates at, which the same pass adds up.
+ */
 public class PasswordValidator implements ConstraintValidator<PasswordConstraint, String> {
 
+    public static final int DEFAULT_MIN_LENGTH = 8;
+    public static final int DEFAULT_MAX_LENGTH = 72;
+    public static final String DEFAULT_SPECIALS = "@#$%^&+=!";
+
+    private static final int DIGIT = 1;
+    private static final int LOWER = 1 << 1;
+    private static final int UPPER = 1 << 2;
+    private static final int SPECIAL = 1 << 3;
+
+    // Defaults apply when used without initialize(), e.g. constructed directly
+    private int minLength = DEFAULT_MIN_LENGTH;
+    private int maxLength = DEFAULT_MAX_LENGTH;
+    private int required = DIGIT | LOWER | UPPER | SPECIAL;
+    private boolean[] specials = specialsTable(DEFAULT_SPECIALS);
+
     @Override
     public void initialize(PasswordConstraint password) {
+        if (password.min() < 0 || password.max() < password.min()) {
+            throw new IllegalArgumentException("Invalid password length bounds: " + password.min() + ".." + password.max());
+        }
+        this.minLength = password.min();
+        this.maxLength = password.max();
+        this.required = (password.requireDigit() ? DIGIT : 0)
+                | (password.requireLowercase() ? LOWER : 0)
+                | (password.requireUppercase() ? UPPER : 0)
+                | (password.requireSpecial() ? SPECIAL : 0);
+        this.specials = specialsTable(password.specials());
     }
 
     @Override
@@ -14,7 +44,42 @@ public class PasswordValidator implements ConstraintValidator<PasswordConstraint
         if (password == null) {
             return false;
         }
-        // At least one digit, one lower case, one upper case, one special char
-        return password.matches("^(?=.*[0-9])(?=.*[a-z])(?=.*[A-Z])(?=.*[@#$%^&+=!]).{8,}$");
+        int length = password.length();
+        // Every char takes at least one UTF-8 byte, so this bounds the scan before it starts
+        if (length < minLength || length > maxLength) {
+            return false;
+        }
+
+        int seen = 0;
+        int utf8Bytes = 0;
+        for (int i = 0; i < length; i++) {
+            char c = password.charAt(i);
+            // A surrogate pair is four bytes, two per half
+            utf8Bytes += c < 0x80 ? 1 : c < 0x800 || Character.isSurrogate(c) ? 2 : 3;
+            if (c >= '0' && c <= '9') {
+                seen |= DIGIT;
+            } else if (c >= 'a' && c <= 'z') {
+                seen |= LOWER;
+            } else if (c >= 'A' && c <= 'Z') {
+                seen |= UPPER;
+            } else if (c < specials.length && specials[c]) {
+                seen |= SPECIAL;
+            } else if (isLineTerminator(c)) {
+                return false;
+            }
+        }
+        return utf8Bytes <= maxLength && (seen & required) == required;
+    }
+
+    // Kept from the old ".{8,}" pattern, whose dot never matched these
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private static boolean[] specialsTable(String specials) {
+        int size = specials.chars().max().orElse(-1) + 1;
+        boolean[] table = new boolean[size];
+        specials.chars().forEach(c -> table[c] = true);
+        return table;
     }
 }
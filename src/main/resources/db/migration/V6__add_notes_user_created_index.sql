@@ -0,0 +1,3 @@
+-- Matches the newest-first order of keyset paging and exports (user_id = ? ORDER BY created_at DESC, id DESC),
+-- so both read rows straight off the index instead of sorting
+CREATE INDEX IF NOT EXISTS idx_notes_user_created ON notes (user_id, created_at DESC, id DESC);
@@ -0,0 +1,4 @@
+-- deleteByUserId filters on user_id (H2 and MySQL index FK columns implicitly, PostgreSQL does not);
+-- the expiry sweep scans by expiry_date
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_user ON refresh_tokens (user_id);
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_expiry ON refresh_tokens (expiry_date);
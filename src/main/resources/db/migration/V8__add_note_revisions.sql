@@ -0,0 +1,24 @@
+-- Delta sync: every note write takes the next value of its owner's users.note_revision counter.
+-- Incrementing that row locks it until commit, so one user's revisions commit in increasing order
+-- and a client that has seen revision N can never miss a later-committed change numbered below N
+ALTER TABLE users ADD COLUMN note_revision BIGINT DEFAULT 0 NOT NULL;
+
+-- The defaults only apply to rows inserted behind NoteRepository's back (fixtures, manual SQL);
+-- revision 0 keeps them out of delta sync, which only returns revisions after the client's
+ALTER TABLE notes ADD COLUMN revision BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE notes ADD COLUMN updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL;
+-- Existing notes: ids are increasing, which is all a revision needs to be
+UPDATE notes SET revision = id, updated_at = created_at;
+UPDATE users SET note_revision = COALESCE((SELECT MAX(revision) FROM notes WHERE notes.user_id = users.id), 0);
+
+CREATE INDEX IF NOT EXISTS idx_notes_user_revision ON notes (user_id, revision);
+
+-- One row per deleted note, so clients syncing from an older revision learn about deletes
+CREATE TABLE IF NOT EXISTS note_tombstones (
+    note_id BIGINT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    revision BIGINT NOT NULL,
+    deleted_at TIMESTAMP NOT NULL,
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+CREATE INDEX IF NOT EXISTS idx_note_tombstones_user_revision ON note_tombstones (user_id, revision);
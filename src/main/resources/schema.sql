@@ -4,7 +4,8 @@ CREATE TABLE IF NOT EXISTS users (
     email VARCHAR(255) NOT NULL UNIQUE,
     password VARCHAR(255) NOT NULL,
     role VARCHAR(50) NOT NULL DEFAULT 'ROLE_USER',
-    details TEXT -- JSON burada String (Text) olaraq qalacaq
+    details TEXT, -- JSON burada String (Text) olaraq qalacaq
+    note_revision BIGINT DEFAULT 0 NOT NULL
 );
 
 CREATE TABLE IF NOT EXISTS notes (
@@ -12,10 +13,20 @@ CREATE TABLE IF NOT EXISTS notes (
     title VARCHAR(100) NOT NULL,
     content VARCHAR(1000) NOT NULL,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    revision BIGINT DEFAULT 0 NOT NULL,
     user_id BIGINT NOT NULL,
     FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
 );
 
+CREATE TABLE IF NOT EXISTS note_tombstones (
+    note_id BIGINT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    revision BIGINT NOT NULL,
+    deleted_at TIMESTAMP NOT NULL,
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
 CREATE TABLE IF NOT EXISTS refresh_tokens (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
     token VARCHAR(255) NOT NULL UNIQUE,
@@ -23,3 +34,9 @@ CREATE TABLE IF NOT EXISTS refresh_tokens (
     expiry_date TIMESTAMP NOT NULL,
     FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
 );
+
+CREATE INDEX IF NOT EXISTS idx_notes_user_created ON notes (user_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_notes_user_revision ON notes (user_id, revision);
+CREATE INDEX IF NOT EXISTS idx_note_tombstones_user_revision ON note_tombstones (user_id, revision);
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_user ON refresh_tokens (user_id);
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_expiry ON refresh_tokens (expiry_date);
@@ -162,10 +162,19 @@ renderNotesList();
 }
 async function fetchNotes() {
 try {
-const data = await apiFetch("/notes", {
+const notes = [];
+let cursor = null;
+do {
+const path = "/api/notes?limit=100" + (cursor ? "&cursor=" + encodeURIComponent(cursor) : "");
+const data = await apiFetch(path, {
 method: "GET"
 });
-notesCache = Array.isArray(data) ? data : [];
+if (data && Array.isArray(data.items)) {
+notes.push(...data.items);
+}
+cursor = data ? data.nextCursor : null;
+} while (cursor);
+notesCache = notes;
 const storedId = getSelectedNoteFromStorage();
 if (storedId) {
 const exists = notesCache.some(n => n.id === storedId);
@@ -199,7 +208,7 @@ return;
 const payload = { title: title || "Untitled note", content };
 try {
 if (selectedNoteId == null) {
-const created = await apiFetch("/notes", {
+const created = await apiFetch("/api/notes", {
 method: "POST",
 body: JSON.stringify(payload)
 });
@@ -208,7 +217,7 @@ if (created && created.id) {
 loadNoteIntoEditor(created.id);
 }
 } else {
-await apiFetch("/notes/" + selectedNoteId, {
+await apiFetch("/api/notes/" + selectedNoteId, {
 method: "PUT",
 body: JSON.stringify(payload)
 });
@@ -230,7 +239,7 @@ if (!confirmed) {
 return;
 }
 try {
-await apiFetch("/notes/" + selectedNoteId, {
+await apiFetch("/api/notes/" + selectedNoteId, {
 method: "DELETE"
 });
 setSelectedNoteId(null);
@@ -0,0 +1,148 @@
+package com.example.lab10;
+
+import com.example.lab10.security.AuthenticatedUser;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ConditionalNoteRequestTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void unchangedNoteListAnswers304UntilTheNextWrite() throws Exception {
+        String jwt = register("etag-api@test.com");
+
+        MockHttpServletResponse first = mockMvc.perform(get("/api/notes").header("Authorization", "Bearer " + jwt))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+                .andReturn().getResponse();
+        String etag = first.getHeader(HttpHeaders.ETAG);
+        String lastModified = first.getHeader(HttpHeaders.LAST_MODIFIED);
+        assertNotNull(etag);
+        assertNotNull(lastModified);
+
+        mockMvc.perform(get("/api/notes").header("Authorization", "Bearer " + jwt)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+        mockMvc.perform(get("/api/notes").header("Authorization", "Bearer " + jwt)
+                        .header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(post("/api/notes").header("Authorization", "Bearer " + jwt)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"New\",\"content\":\"changes the version\"}"))
+                .andExpect(status().isCreated());
+
+        String changed = mockMvc.perform(get("/api/notes").header("Authorization", "Bearer " + jwt)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, changed);
+    }
+
+    @Test
+    void secondWriteInTheSameSecondIsNotHiddenByIfModifiedSince() throws Exception {
+        String jwt = register("etag-same-second@test.com");
+        createNote(jwt, "First");
+        String lastModified = mockMvc.perform(get("/api/notes").header("Authorization", "Bearer " + jwt))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.LAST_MODIFIED);
+
+        createNote(jwt, "Second"); // Well within the same second as the first write
+
+        String changed = mockMvc.perform(get("/api/notes").header("Authorization", "Bearer " + jwt)
+                        .header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.LAST_MODIFIED);
+        assertNotEquals(lastModified, changed);
+    }
+
+    @Test
+    void anotherUsersEtagNeverMatches() throws Exception {
+        String alice = register("etag-alice@test.com");
+        String bob = register("etag-bob@test.com");
+
+        String aliceEtag = mockMvc.perform(get("/api/notes").header("Authorization", "Bearer " + alice))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/api/notes").header("Authorization", "Bearer " + bob)
+                        .header(HttpHeaders.IF_NONE_MATCH, aliceEtag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void dashboardIsRevalidatedPerSession() throws Exception {
+        String email = "etag-dashboard@test.com";
+        register(email);
+        Long id = jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = ?", Long.class, email);
+        AuthenticatedUser principal = new AuthenticatedUser(id, email, "x",
+                List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        MockHttpSession session = new MockHttpSession();
+
+        String etag = mockMvc.perform(get("/dashboard").session(session).with(user(principal)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/dashboard").session(session).with(user(principal))
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        // A new session carries a new CSRF token, so the cached page must not be reused
+        mockMvc.perform(get("/dashboard").session(new MockHttpSession()).with(user(principal))
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/dashboard").session(session).with(user(principal)).with(csrf())
+                        .param("title", "Posted").param("content", "from the form"))
+                .andExpect(status().is3xxRedirection());
+        mockMvc.perform(get("/dashboard").session(session).with(user(principal))
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM notes WHERE user_id = ?", Integer.class, id));
+    }
+
+    private void createNote(String jwt, String title) throws Exception {
+        mockMvc.perform(post("/api/notes").header("Authorization", "Bearer " + jwt)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"" + title + "\",\"content\":\"changes the version\"}"))
+                .andExpect(status().isCreated());
+    }
+
+    private String register(String email) throws Exception {
+        String body = mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"" + email.substring(0, email.indexOf('@')).replace("-", "")
+                                + "\",\"email\":\"" + email + "\",\"password\":\"Password1!\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return JsonPath.read(body, "$.token");
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.lab10;
+
+import com.example.lab10.security.AuthenticatedUser;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class LogoutTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void apiLogoutRevokesTheAccessTokenAndRefreshTokens() throws Exception {
+        String body = register("logout-api@test.com");
+        String jwt = JsonPath.read(body, "$.token");
+        long userId = ((Number) JsonPath.read(body, "$.id")).longValue();
+        mockMvc.perform(get("/api/notes").header("Authorization", "Bearer " + jwt))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/auth/logout").header("Authorization", "Bearer " + jwt))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/notes").header("Authorization", "Bearer " + jwt))
+                .andExpect(status().isUnauthorized());
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM refresh_tokens WHERE user_id = ?", Integer.class, userId));
+    }
+
+    @Test
+    void apiLogoutNeedsAToken() throws Exception {
+        mockMvc.perform(post("/api/auth/logout")).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void webLogoutAlsoRevokesApiTokens() throws Exception {
+        String body = register("logout-web@test.com");
+        String jwt = JsonPath.read(body, "$.token");
+        AuthenticatedUser principal = new AuthenticatedUser(((Number) JsonPath.read(body, "$.id")).longValue(),
+                "logout-web@test.com", "", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+
+        mockMvc.perform(post("/logout").with(user(principal)).with(csrf()))
+                .andExpect(status().is3xxRedirection());
+
+        mockMvc.perform(get("/api/notes").header("Authorization", "Bearer " + jwt))
+                .andExpect(status().isUnauthorized());
+    }
+
+    private String register(String email) throws Exception {
+        return mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"" + email.substring(0, email.indexOf('@')).replace("-", "")
+                                + "\",\"email\":\"" + email + "\",\"password\":\"Password1!\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+}
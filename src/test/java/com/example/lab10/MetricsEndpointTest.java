@@ -0,0 +1,84 @@
+package com.example.lab10;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false) // Metrics export is switched off in tests unless asked for
+class MetricsEndpointTest {
+
+    private static final String EMAIL = "metrics-admin@test.com";
+    private static final String PASSWORD = "Password1!";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void healthIsPublicButMetricsAreNot() throws Exception {
+        mockMvc.perform(get("/actuator/health")).andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/prometheus")).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void prometheusScrapeCoversSecurityAndPersistenceHotPaths() throws Exception {
+        String registered = mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"metricsadmin\",\"email\":\"" + EMAIL + "\",\"password\":\"" + PASSWORD + "\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String jwt = JsonPath.read(registered, "$.token");
+        String refreshToken = JsonPath.read(registered, "$.refreshToken");
+
+        // Exercise JWT verification, the principal lookup, note queries and a token rotation
+        mockMvc.perform(get("/api/notes").header("Authorization", "Bearer " + jwt)).andExpect(status().isOk());
+        mockMvc.perform(get("/api/notes").header("Authorization", "Bearer " + jwt)).andExpect(status().isOk());
+        mockMvc.perform(post("/api/auth/refreshtoken")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\":\"" + refreshToken + "\"}"))
+                .andExpect(status().isOk());
+
+        // Ordinary users cannot scrape
+        mockMvc.perform(get("/actuator/prometheus").header("Authorization", "Bearer " + jwt))
+                .andExpect(status().isForbidden());
+
+        jdbcTemplate.update("UPDATE users SET role = 'ROLE_ADMIN' WHERE email = ?", EMAIL);
+        String scrape = mockMvc.perform(get("/actuator/prometheus").with(httpBasic(EMAIL, PASSWORD)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        for (String series : new String[]{
+                "jwt_verify_seconds_count",
+                "jwt_verify_outcomes_total{application=\"lab10\",outcome=\"cached\"}",
+                "auth_user_lookup_seconds_count",
+                "auth_principal_cache_total{application=\"lab10\",result=\"hit\"}",
+                "auth_refresh_rotation_seconds_count",
+                "password_hash_seconds_count",
+                "password_hash_queue_wait_seconds_count",
+                "password_hash_rejected_total",
+                "rate_limit_rejections_total{application=\"lab10\",route=\"/**\"}",
+                "refresh_token_purged_total",
+                "cache_gets_total{application=\"lab10\",cache=\"notes\",result=\"miss\"}",
+                "query=\"notes.findPageByUserId\"",
+                "query=\"refreshTokens.findByToken\"",
+                "db_query_seconds_bucket"}) {
+            assertTrue(scrape.contains(series), "Missing " + series);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.lab10;
+
+import com.example.lab10.dto.BulkNoteOperation;
+import com.example.lab10.dto.BulkNoteResult;
+import com.example.lab10.search.NoteSearchIndex;
+import com.example.lab10.security.AuthenticatedUser;
+import com.example.lab10.service.NoteBulkService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Bulk writes through the real context: the repository joins the application's (JPA) transaction,
+ * so a bulk apply inside a caller's transaction commits or rolls back as a whole.
+ */
+@SpringBootTest
+class NoteBulkTransactionTest {
+
+    @Autowired
+    private NoteBulkService bulkService;
+
+    @Autowired
+    private NoteSearchIndex searchIndex;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long userId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO users (username, email, password) VALUES ('bulktx', 'bulk-tx@test.com', 'x')");
+        userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = 'bulk-tx@test.com'", Long.class);
+        AuthenticatedUser user = new AuthenticatedUser(userId, "bulk-tx@test.com", "x",
+                List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        jdbcTemplate.update("DELETE FROM notes WHERE user_id = ?", userId);
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId);
+    }
+
+    @Test
+    void testRolledBackBulkApplyLeavesNoRowsAndNotifiesNoListener() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            List<BulkNoteResult> results = bulkService.apply(List.of(
+                    create("Quarterly", "rollback"),
+                    create("Annual", "rollback")));
+            assertEquals(List.of(201, 201), results.stream().map(BulkNoteResult::getStatus).toList());
+            status.setRollbackOnly();
+        });
+
+        assertEquals(0, noteCount());
+        assertTrue(searchIndex.search(userId, "rollback", 10).isEmpty());
+    }
+
+    @Test
+    void testCommittedBulkApplyNotifiesListenersOnlyAfterCommit() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            bulkService.apply(List.of(create("Quarterly", "committed"), create("Annual", "committed")));
+            // Still inside the caller's transaction: nothing is visible to listeners yet
+            assertTrue(searchIndex.search(userId, "committed", 10).isEmpty());
+        });
+
+        assertEquals(2, noteCount());
+        assertEquals(2, searchIndex.search(userId, "committed", 10).size());
+    }
+
+    private int noteCount() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM notes WHERE user_id = ?", Integer.class, userId);
+    }
+
+    private static BulkNoteOperation create(String title, String content) {
+        BulkNoteOperation operation = new BulkNoteOperation();
+        operation.setType(BulkNoteOperation.Type.CREATE);
+        operation.setTitle(title);
+        operation.setContent(content);
+        return operation;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.lab10;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class NoteStreamEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void streamRequiresAuthentication() throws Exception {
+        mockMvc.perform(get("/api/notes/stream").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void committedWritesArePushedToOpenStreams() throws Exception {
+        String jwt = register("stream-user@test.com");
+        String other = register("stream-other@test.com");
+
+        MockHttpServletResponse stream = mockMvc.perform(get("/api/notes/stream")
+                        .header("Authorization", "Bearer " + jwt).accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse();
+
+        createNote(other, "Not yours");
+        String created = mockMvc.perform(post("/api/notes").header("Authorization", "Bearer " + jwt)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Pushed\",\"content\":\"over SSE\"}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        Number id = JsonPath.read(created, "$.id");
+        mockMvc.perform(delete("/api/notes/" + id).header("Authorization", "Bearer " + jwt))
+                .andExpect(status().isNoContent());
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!stream.getContentAsString().contains("\"type\":\"DELETED\"") && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        String events = stream.getContentAsString();
+        assertTrue(events.startsWith(":connected"), events);
+        assertTrue(events.contains("event:note\ndata:{\"type\":\"CREATED\",\"noteId\":" + id), events);
+        assertTrue(events.contains("{\"type\":\"DELETED\",\"noteId\":" + id + ",\"note\":null}"), events);
+        assertFalse(events.contains("Not yours"), events);
+    }
+
+    private void createNote(String jwt, String title) throws Exception {
+        mockMvc.perform(post("/api/notes").header("Authorization", "Bearer " + jwt)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"" + title + "\",\"content\":\"x\"}"))
+                .andExpect(status().isCreated());
+    }
+
+    private String register(String email) throws Exception {
+        String body = mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"" + email.substring(0, email.indexOf('@')).replace("-", "")
+                                + "\",\"email\":\"" + email + "\",\"password\":\"Password1!\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return JsonPath.read(body, "$.token");
+    }
+}
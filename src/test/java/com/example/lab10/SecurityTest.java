@@ -1,12 +1,26 @@
 package com.example.lab10;
 
+import com.example.lab10.model.User;
+import com.example.lab10.security.CustomUserDetailsService;
+import com.example.lab10.security.PrincipalCache;
+import com.example.lab10.service.UserService;
+import com.jayway.jsonpath.JsonPath;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -16,6 +30,18 @@ class SecurityTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
     @Test
     void accessPublicEndpoint_ShouldBeAllowed() throws Exception {
         mockMvc.perform(get("/login"))
@@ -25,6 +51,74 @@ class SecurityTest {
     @Test
     void accessProtectedEndpoint_WithoutAuth_ShouldBeUnauthorized() throws Exception {
         mockMvc.perform(get("/api/notes"))
-                .andExpect(status().isForbidden()); // Spring Security returns 403 for anonymous access to protected resources by default
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void apiLogin_AcceptsExistingPasswordLongerThanThePolicyMaximum() throws Exception {
+        // Chosen before the 72-byte registration limit existed; login must not apply the policy
+        String password = "Aa1!" + "x".repeat(76);
+        User user = new User();
+        user.setUsername("longpass");
+        user.setEmail("long-password@test.com");
+        user.setPassword(password);
+        userService.createUser(user);
+
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"long-password@test.com\",\"password\":\"" + password + "\"}"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void changeRole_EndsOldTokensAndRefreshesTheCachedPrincipal() throws Exception {
+        User user = createUser("role-change", "Password1!");
+        String jwt = login("role-change@test.com", "Password1!");
+        mockMvc.perform(get("/api/notes").header("Authorization", "Bearer " + jwt))
+                .andExpect(status().isOk());
+        // Fill the cache the way a token without the uid claim would
+        principalCache.get("role-change@test.com", userDetailsService::loadUserByUsername);
+
+        userService.changeRole(user.getId(), "ROLE_ADMIN");
+
+        mockMvc.perform(get("/api/notes").header("Authorization", "Bearer " + jwt))
+                .andExpect(status().isUnauthorized());
+        UserDetails principal = principalCache.get("role-change@test.com", userDetailsService::loadUserByUsername);
+        assertEquals(List.of("ROLE_ADMIN"),
+                principal.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+    }
+
+    @Test
+    void changePassword_EndsOldTokensAndRefreshesTheCachedPrincipal() throws Exception {
+        User user = createUser("password-change", "Password1!");
+        String jwt = login("password-change@test.com", "Password1!");
+        mockMvc.perform(get("/api/notes").header("Authorization", "Bearer " + jwt))
+                .andExpect(status().isOk());
+        // Fill the cache the way a token without the uid claim would
+        principalCache.get("password-change@test.com", userDetailsService::loadUserByUsername);
+
+        userService.changePassword(user.getId(), "Changed2@");
+
+        mockMvc.perform(get("/api/notes").header("Authorization", "Bearer " + jwt))
+                .andExpect(status().isUnauthorized());
+        UserDetails principal = principalCache.get("password-change@test.com", userDetailsService::loadUserByUsername);
+        assertTrue(passwordEncoder.matches("Changed2@", principal.getPassword()));
+    }
+
+    private User createUser(String username, String password) {
+        User user = new User();
+        user.setUsername(username.replace("-", ""));
+        user.setEmail(username + "@test.com");
+        user.setPassword(password);
+        return userService.createUser(user);
+    }
+
+    private String login(String email, String password) throws Exception {
+        String body = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"" + email + "\",\"password\":\"" + password + "\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return JsonPath.read(body, "$.token");
     }
 }
@@ -0,0 +1,96 @@
+package com.example.lab10.audit;
+
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditLogTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testEventsAreMaskedEscapedAndWrittenAsJsonLines() throws Exception {
+        Path file = dir.resolve("audit.log");
+        AuditLog auditLog = new AuditLog(true, file.toString(), 64, 1 << 20, 1);
+
+        auditLog.record(AuditEvent.Type.LOGIN_SUCCESS, "alice@example.com");
+        auditLog.record(AuditEvent.Type.ACCESS_DENIED, "Anonymous", "/api/notes/\"1\"\né");
+        auditLog.shutdown();
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).matches("\\{\"ts\":\"[0-9T:.-]+Z\",\"event\":\"LOGIN_SUCCESS\",\"user\":\"a\\*\\*\\*@e\\*\\*\\*\\.com\"}"),
+                lines.get(0));
+        assertTrue(lines.get(1).endsWith("\"detail\":\"/api/notes/\\\"1\\\"\\u000a\\u00e9\"}"), lines.get(1));
+        assertFalse(Files.readString(file).contains("alice"));
+        assertEquals(2, auditLog.writtenCount());
+    }
+
+    @Test
+    void testFileRotatesBySizeAndKeepsBoundedHistory() throws Exception {
+        Path file = dir.resolve("audit.log");
+        AuditLog auditLog = new AuditLog(true, file.toString(), 1024, 300, 2);
+
+        for (int i = 0; i < 50; i++) {
+            auditLog.record(AuditEvent.Type.USER_LOOKUP, "user" + i + "@example.com");
+        }
+        auditLog.shutdown();
+
+        for (Path path : List.of(file, dir.resolve("audit.log.1"), dir.resolve("audit.log.2"))) {
+            assertTrue(Files.exists(path), path + " missing");
+            assertTrue(Files.size(path) <= 300, path + " exceeds the size limit");
+        }
+        assertFalse(Files.exists(dir.resolve("audit.log.3")));
+    }
+
+    @Test
+    void testFullQueueDropsInsteadOfBlockingAndRecordsTheGap() throws Exception {
+        Path file = dir.resolve("audit.log");
+        AuditLog auditLog = new AuditLog(true, file.toString(), 1, 1 << 24, 1);
+
+        int events = 100_000;
+        for (int i = 0; i < events; i++) {
+            auditLog.record(AuditEvent.Type.LOGIN_FAILURE, "bob@example.com", "BadCredentialsException");
+        }
+        auditLog.shutdown();
+
+        assertTrue(auditLog.droppedCount() > 0, "A one-slot queue should have overflowed");
+        assertEquals(events, auditLog.recordedCount() + auditLog.droppedCount());
+        assertEquals(auditLog.recordedCount(), auditLog.writtenCount());
+
+        // Every dropped event is accounted for in the file itself
+        long reportedDrops = Files.readAllLines(file).stream()
+                .filter(line -> line.contains("\"event\":\"AUDIT_EVENTS_DROPPED\""))
+                .mapToLong(line -> Long.parseLong(line.replaceAll(".*\"detail\":\"(\\d+)\".*", "$1")))
+                .sum();
+        assertEquals(auditLog.droppedCount(), reportedDrops);
+    }
+
+    @Test
+    void testRecordAllocatesOnlyTheEvent() throws Exception {
+        AuditLog auditLog = new AuditLog(true, dir.resolve("audit.log").toString(), 1024, 1 << 24, 1);
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        int events = 100_000;
+        for (int i = 0; i < events; i++) {
+            auditLog.record(AuditEvent.Type.USER_LOOKUP, "carol@example.com"); // warm-up
+        }
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < events; i++) {
+            auditLog.record(AuditEvent.Type.USER_LOOKUP, "carol@example.com");
+        }
+        long perEvent = (threads.getCurrentThreadAllocatedBytes() - before) / events;
+        auditLog.shutdown();
+
+        // No masking, formatting or string building on the caller's thread
+        assertTrue(perEvent <= 64, "record() allocated " + perEvent + " bytes per event");
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.lab10.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void testBurstUpToCapacityThenReject() {
+        AtomicLong clock = new AtomicLong();
+        RateLimiter limiter = new RateLimiter(5, 60, 100, 4, clock::get);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire("10.0.0.1"));
+        }
+        assertFalse(limiter.tryAcquire("10.0.0.1"));
+        assertEquals(1, limiter.rejectedCount());
+
+        // Other clients have their own bucket
+        assertTrue(limiter.tryAcquire("10.0.0.2"));
+    }
+
+    @Test
+    void testTokensRefillContinuously() {
+        AtomicLong clock = new AtomicLong();
+        RateLimiter limiter = new RateLimiter(5, 60, 100, 4, clock::get); // one token per second
+
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire("client");
+        }
+        assertFalse(limiter.tryAcquire("client"));
+
+        clock.addAndGet(SECOND);
+        assertTrue(limiter.tryAcquire("client"));
+        assertFalse(limiter.tryAcquire("client"));
+    }
+
+    @Test
+    void testNoDoubleBurstAtWindowEdge() {
+        AtomicLong clock = new AtomicLong();
+        RateLimiter limiter = new RateLimiter(50, 50, 100, 4, clock::get);
+
+        int allowed = 0;
+        // 100 requests spread over two seconds straddling what used to be a window boundary
+        for (int i = 0; i < 100; i++) {
+            clock.addAndGet(SECOND / 50);
+            if (limiter.tryAcquire("client")) {
+                allowed++;
+            }
+        }
+        assertTrue(allowed <= 52, "Burst should be capped near capacity, was " + allowed);
+    }
+
+    @Test
+    void testIdleClientsAreEvicted() {
+        AtomicLong clock = new AtomicLong();
+        RateLimiter limiter = new RateLimiter(5, 60, 100, 4, clock::get);
+
+        limiter.tryAcquire("idle");
+        clock.addAndGet(10 * SECOND);
+        limiter.tryAcquire("active");
+        limiter.evictIdle();
+
+        assertEquals(1, limiter.size());
+        assertEquals(1, limiter.evictionCount());
+    }
+
+    @Test
+    void testTableStaysBoundedWithManyDistinctKeys() throws Exception {
+        int maxKeys = 1_000;
+        int threads = 8;
+        int keysPerThread = 25_000;
+        RateLimiter limiter = new RateLimiter(10, 60, maxKeys, 16);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < keysPerThread; i++) {
+                        limiter.tryAcquire(thread + "." + i);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // Every key that is no longer in the table was evicted, not leaked
+        long distinctKeys = (long) threads * keysPerThread;
+        assertTrue(limiter.size() <= maxKeys, "Table grew past capacity: " + limiter.size());
+        assertEquals(distinctKeys - limiter.size(), limiter.evictionCount());
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.lab10.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Drives the note and auth endpoints with many concurrent clients against a real server.
+ * Subclasses boot the app with platform or virtual request threads; both append to
+ * target/thread-model-load.txt so the two modes can be compared side by side.
+ */
+@Tag("load")
+abstract class AbstractThreadModelLoadTest {
+
+    private static final int NOTE_CLIENTS = 200;
+    private static final int NOTE_REQUESTS_PER_CLIENT = 25;
+    private static final int LOGIN_CLIENTS = 50;
+    private static final int LOGIN_REQUESTS_PER_CLIENT = 2;
+    private static final String PASSWORD = "Password1!";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+
+    @LocalServerPort
+    private int port;
+
+    abstract String mode();
+
+    abstract boolean expectVirtualRequestThreads();
+
+    @Test
+    void noteAndAuthEndpointsUnderConcurrentLoad() throws Exception {
+        String email = mode() + "-load@test.com";
+        String token = register(email);
+        post("/api/notes/bulk", token, "[" + "{\"type\":\"CREATE\",\"title\":\"Load\",\"content\":\"Seeded note\"},"
+                .repeat(49) + "{\"type\":\"CREATE\",\"title\":\"Load\",\"content\":\"Seeded note\"}]");
+
+        HttpResponse<String> probe = get("/api/test/thread", token);
+        assertEquals(String.valueOf(expectVirtualRequestThreads()), probe.body(), "Request thread model");
+
+        // Warm-up so the mode that runs first is not also paying for JIT compilation
+        run("warm-up", 20, 20, () -> get("/api/notes?limit=20", token).statusCode());
+
+        Result notes = run("GET /api/notes", NOTE_CLIENTS, NOTE_REQUESTS_PER_CLIENT,
+                () -> get("/api/notes?limit=20", token).statusCode());
+        String loginBody = "{\"username\":\"load\",\"email\":\"" + email + "\",\"password\":\"" + PASSWORD + "\"}";
+        Result logins = run("POST /api/auth/login", LOGIN_CLIENTS, LOGIN_REQUESTS_PER_CLIENT,
+                () -> post("/api/auth/login", null, loginBody).statusCode());
+
+        report(notes, logins);
+        assertEquals(0, notes.failures, "Note reads failed under load");
+        // Logins may be shed with 503 by the hashing pool, but must not fail otherwise
+        assertEquals(0, logins.failures, "Logins failed with something other than 503");
+        assertTrue(logins.succeeded > 0);
+    }
+
+    private Result run(String name, int clients, int requestsPerClient, StatusCall call) throws Exception {
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger shed = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        List<Long> latencies = java.util.Collections.synchronizedList(new ArrayList<>());
+
+        long start = System.nanoTime();
+        try (ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int c = 0; c < clients; c++) {
+                futures.add(clientThreads.submit(() -> {
+                    for (int i = 0; i < requestsPerClient; i++) {
+                        long requestStart = System.nanoTime();
+                        int status = call.status();
+                        latencies.add(System.nanoTime() - requestStart);
+                        if (status == 200) {
+                            succeeded.incrementAndGet();
+                        } else if (status == 503) {
+                            shed.incrementAndGet();
+                        } else {
+                            failures.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        sorted.sort(null);
+        return new Result(name, sorted.size(), succeeded.get(), shed.get(), failures.get(), elapsed,
+                sorted.get(sorted.size() / 2), sorted.get(sorted.size() * 99 / 100));
+    }
+
+    private void report(Result... results) throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (Result result : results) {
+            line.append(String.format("%-9s %-20s %5d req %7.0f req/s p50=%7.1fms p99=%7.1fms ok=%d 503=%d failed=%d%n",
+                    mode(), result.name, result.requests, result.requests / (result.elapsedNanos / 1e9),
+                    result.p50 / 1e6, result.p99 / 1e6, result.succeeded, result.shed, result.failures));
+        }
+        Path target = Path.of("target");
+        Files.createDirectories(target);
+        Files.writeString(target.resolve("thread-model-load.txt"), line,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private String register(String email) throws Exception {
+        HttpResponse<String> response = post("/api/auth/register", null,
+                "{\"username\":\"load\",\"email\":\"" + email + "\",\"password\":\"" + PASSWORD + "\"}");
+        assertEquals(200, response.statusCode(), response.body());
+        JsonNode body = objectMapper.readTree(response.body());
+        return body.get("token").asText();
+    }
+
+    private HttpResponse<String> get(String path, String token) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri(path)).GET();
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String path, String token, String json) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    @FunctionalInterface
+    private interface StatusCall {
+        int status() throws Exception;
+    }
+
+    private record Result(String name, int requests, int succeeded, int shed, int failures, long elapsedNanos,
+            long p50, long p99) {
+    }
+
+    /**
+     * Reports which kind of thread served the request.
+     */
+    @TestConfiguration
+    static class ThreadProbeConfig {
+        @Bean
+        ThreadProbeController threadProbeController() {
+            return new ThreadProbeController();
+        }
+    }
+
+    @RestController
+    static class ThreadProbeController {
+        @GetMapping("/api/test/thread")
+        String thread() {
+            return String.valueOf(Thread.currentThread().isVirtual());
+        }
+    }
+}
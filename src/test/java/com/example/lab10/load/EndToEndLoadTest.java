@@ -0,0 +1,60 @@
+package com.example.lab10.load;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Release gate: mixed auth and note traffic against the app on in-memory H2.
+ * Run with mvn test -Pload-test; scale with -Dload.users, -Dload.concurrency,
+ * -Dload.duration-seconds, -Dload.weight.<endpoint>, and tighten or relax the gate with
+ * -Dload.p99-budget-ms.<endpoint> (e.g. -Dload.p99-budget-ms.list-notes=250).
+ * The report is written to target/load-test/.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "rate-limit.enabled=false")
+class EndToEndLoadTest {
+
+    // Defaults sized for a single-core CI runner, where BCrypt alone takes about a third of the CPU;
+    // logins are bounded by the hashing pool, not the app
+    private static final Map<LoadScenarioRunner.Endpoint, Long> DEFAULT_P99_BUDGET_MS = Map.of(
+            LoadScenarioRunner.Endpoint.LOGIN, 10_000L,
+            LoadScenarioRunner.Endpoint.REFRESH, 3_000L,
+            LoadScenarioRunner.Endpoint.LIST_NOTES, 3_000L,
+            LoadScenarioRunner.Endpoint.GET_NOTE, 3_000L,
+            LoadScenarioRunner.Endpoint.CREATE_NOTE, 3_000L,
+            LoadScenarioRunner.Endpoint.UPDATE_NOTE, 3_000L,
+            LoadScenarioRunner.Endpoint.DELETE_NOTE, 3_000L);
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void mixedTrafficStaysWithinP99Budgets() throws Exception {
+        LoadScenarioRunner runner = new LoadScenarioRunner("http://localhost:" + port,
+                LoadScenarioRunner.Settings.fromSystemProperties());
+        Map<LoadScenarioRunner.Endpoint, LoadScenarioRunner.EndpointStats> stats = runner.run();
+        runner.writeReport(Path.of("target", "load-test"));
+
+        List<String> violations = new ArrayList<>();
+        stats.forEach((endpoint, endpointStats) -> {
+            long budget = Long.getLong("load.p99-budget-ms." + endpoint.key(), DEFAULT_P99_BUDGET_MS.get(endpoint));
+            if (endpointStats.latencyMicros.getTotalCount() > 0 && endpointStats.p99Millis() > budget) {
+                violations.add(endpoint.label + " p99 " + endpointStats.p99Millis() + " ms > " + budget + " ms");
+            }
+            if (endpointStats.errors.sum() > 0) {
+                violations.add(endpoint.label + " had " + endpointStats.errors.sum() + " errors");
+            }
+        });
+        assertTrue(violations.isEmpty(), String.join("\n", violations) + "\n" + runner.report());
+    }
+}
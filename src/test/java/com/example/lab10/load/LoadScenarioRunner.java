@@ -0,0 +1,303 @@
+package com.example.lab10.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop scenario runner: registers users, then each of {@code concurrency} sessions logs in
+ * and issues a weighted mix of auth and note calls back to back. Latencies after the warm-up go
+ * into one HdrHistogram per endpoint.
+ */
+class LoadScenarioRunner {
+
+    enum Endpoint {
+        LOGIN("POST /api/auth/login", 200, 5),
+        REFRESH("POST /api/auth/refreshtoken", 200, 5),
+        LIST_NOTES("GET /api/notes", 200, 40),
+        GET_NOTE("GET /api/notes/{id}", 200, 15),
+        CREATE_NOTE("POST /api/notes", 201, 15),
+        UPDATE_NOTE("PUT /api/notes/{id}", 200, 10),
+        DELETE_NOTE("DELETE /api/notes/{id}", 204, 10);
+
+        final String label;
+        final int expectedStatus;
+        final int defaultWeight;
+
+        Endpoint(String label, int expectedStatus, int defaultWeight) {
+            this.label = label;
+            this.expectedStatus = expectedStatus;
+            this.defaultWeight = defaultWeight;
+        }
+
+        String key() {
+            return name().toLowerCase().replace('_', '-');
+        }
+    }
+
+    /**
+     * Scenario knobs, read from -Dload.* system properties so a release job can scale them.
+     */
+    record Settings(int users, int concurrency, Duration warmup, Duration duration, Map<Endpoint, Integer> weights) {
+
+        static Settings fromSystemProperties() {
+            Map<Endpoint, Integer> weights = new EnumMap<>(Endpoint.class);
+            for (Endpoint endpoint : Endpoint.values()) {
+                weights.put(endpoint, Integer.getInteger("load.weight." + endpoint.key(), endpoint.defaultWeight));
+            }
+            return new Settings(Integer.getInteger("load.users", 20),
+                    Integer.getInteger("load.concurrency", 16),
+                    Duration.ofSeconds(Integer.getInteger("load.warmup-seconds", 5)),
+                    Duration.ofSeconds(Integer.getInteger("load.duration-seconds", 20)),
+                    weights);
+        }
+    }
+
+    static final class EndpointStats {
+        // 1 microsecond to 1 minute, 3 significant digits
+        final Histogram latencyMicros = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3);
+        final LongAdder shed = new LongAdder();
+        final LongAdder errors = new LongAdder();
+
+        long p99Millis() {
+            return latencyMicros.getValueAtPercentile(99) / 1000;
+        }
+    }
+
+    private static final String PASSWORD = "Password1!";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+    private final String baseUrl;
+    private final Settings settings;
+    private final Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+    private final int totalWeight;
+
+    private volatile boolean measuring;
+    private long measuredNanos;
+
+    LoadScenarioRunner(String baseUrl, Settings settings) {
+        this.baseUrl = baseUrl;
+        this.settings = settings;
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats.put(endpoint, new EndpointStats());
+        }
+        this.totalWeight = settings.weights().values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    Map<Endpoint, EndpointStats> run() throws Exception {
+        for (int i = 0; i < settings.users(); i++) {
+            HttpResponse<String> response = post("/api/auth/register", null, credentials(i));
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Registering load user " + i + " failed: " + response.body());
+            }
+        }
+
+        long start = System.nanoTime();
+        long measureFrom = start + settings.warmup().toNanos();
+        long deadline = measureFrom + settings.duration().toNanos();
+        try (ExecutorService sessions = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int s = 0; s < settings.concurrency(); s++) {
+                int user = s % settings.users();
+                futures.add(sessions.submit(() -> {
+                    runSession(user, measureFrom, deadline);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        measuredNanos = settings.duration().toNanos();
+        return stats;
+    }
+
+    private void runSession(int user, long measureFrom, long deadline) throws Exception {
+        Session session = new Session(user);
+        session.login();
+        while (System.nanoTime() < deadline) {
+            measuring = System.nanoTime() >= measureFrom;
+            Endpoint endpoint = pick();
+            if (session.noteIds.isEmpty() && (endpoint == Endpoint.GET_NOTE || endpoint == Endpoint.UPDATE_NOTE
+                    || endpoint == Endpoint.DELETE_NOTE)) {
+                endpoint = Endpoint.CREATE_NOTE;
+            }
+            session.call(endpoint);
+        }
+    }
+
+    private Endpoint pick() {
+        int roll = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Map.Entry<Endpoint, Integer> weight : settings.weights().entrySet()) {
+            roll -= weight.getValue();
+            if (roll < 0) {
+                return weight.getKey();
+            }
+        }
+        return Endpoint.LIST_NOTES;
+    }
+
+    String report() {
+        double seconds = measuredNanos / 1e9;
+        StringBuilder report = new StringBuilder(String.format(
+                "users=%d concurrency=%d warmup=%ds duration=%ds%n%-28s %8s %8s %8s %8s %8s %8s %8s %6s %6s%n",
+                settings.users(), settings.concurrency(), settings.warmup().toSeconds(), settings.duration().toSeconds(),
+                "endpoint", "count", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "503", "errors"));
+        stats.forEach((endpoint, endpointStats) -> {
+            Histogram h = endpointStats.latencyMicros;
+            report.append(String.format("%-28s %8d %8.1f %8.1f %8.1f %8.1f %8.1f %8.1f %6d %6d%n",
+                    endpoint.label, h.getTotalCount(), h.getTotalCount() / seconds,
+                    h.getValueAtPercentile(50) / 1000.0, h.getValueAtPercentile(90) / 1000.0,
+                    h.getValueAtPercentile(99) / 1000.0, h.getValueAtPercentile(99.9) / 1000.0,
+                    h.getMaxValue() / 1000.0, endpointStats.shed.sum(), endpointStats.errors.sum()));
+        });
+        return report.toString();
+    }
+
+    /**
+     * Writes the summary plus one .hgrm percentile distribution per endpoint (plottable with
+     * the HdrHistogram plotter) under the given directory.
+     */
+    void writeReport(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Files.writeString(directory.resolve("summary.txt"), report());
+        for (Map.Entry<Endpoint, EndpointStats> entry : stats.entrySet()) {
+            try (PrintStream out = new PrintStream(
+                    Files.newOutputStream(directory.resolve(entry.getKey().key() + ".hgrm")))) {
+                entry.getValue().latencyMicros.outputPercentileDistribution(out, 1000.0); // in ms
+            }
+        }
+    }
+
+    private String credentials(int user) {
+        return "{\"username\":\"load" + user + "\",\"email\":\"load" + user + "@test.com\",\"password\":\""
+                + PASSWORD + "\"}";
+    }
+
+    private HttpResponse<String> post(String path, String token, String json) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json)), token);
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request, String token)
+            throws IOException, InterruptedException {
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * One logged-in client: its own tokens and the ids of the notes it created.
+     */
+    private final class Session {
+        final int user;
+        final Deque<Long> noteIds = new ArrayDeque<>();
+        String accessToken;
+        String refreshToken;
+
+        Session(int user) {
+            this.user = user;
+        }
+
+        void login() throws Exception {
+            // Retry through 503s: sessions all log in at once and the hashing pool sheds the burst
+            while (true) {
+                HttpResponse<String> response = post("/api/auth/login", null, credentials(user));
+                if (response.statusCode() == 200) {
+                    JsonNode body = objectMapper.readTree(response.body());
+                    accessToken = body.get("token").asText();
+                    refreshToken = body.get("refreshToken").asText();
+                    return;
+                }
+                if (response.statusCode() != 503) {
+                    throw new IllegalStateException("Login failed: " + response.body());
+                }
+                Thread.sleep(ThreadLocalRandom.current().nextInt(50, 250));
+            }
+        }
+
+        void call(Endpoint endpoint) throws Exception {
+            long start = System.nanoTime();
+            HttpResponse<String> response = switch (endpoint) {
+                case LOGIN -> post("/api/auth/login", null, credentials(user));
+                case REFRESH -> post("/api/auth/refreshtoken", null, "{\"refreshToken\":\"" + refreshToken + "\"}");
+                case LIST_NOTES -> send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/notes?limit=20")).GET(),
+                        accessToken);
+                case GET_NOTE -> send(HttpRequest.newBuilder(noteUri(noteIds.peekLast())).GET(), accessToken);
+                case CREATE_NOTE -> post("/api/notes", accessToken, "{\"title\":\"Load\",\"content\":\"Load test note\"}");
+                case UPDATE_NOTE -> send(HttpRequest.newBuilder(noteUri(noteIds.peekLast()))
+                        .header("Content-Type", "application/json")
+                        .PUT(HttpRequest.BodyPublishers.ofString("{\"title\":\"Updated\",\"content\":\"Updated note\"}")),
+                        accessToken);
+                case DELETE_NOTE -> send(HttpRequest.newBuilder(noteUri(noteIds.peekFirst())).DELETE(), accessToken);
+            };
+            long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+
+            EndpointStats endpointStats = stats.get(endpoint);
+            if (measuring) {
+                endpointStats.latencyMicros.recordValue(Math.min(micros, endpointStats.latencyMicros.getHighestTrackableValue()));
+            }
+            if (response.statusCode() == endpoint.expectedStatus) {
+                onSuccess(endpoint, response);
+            } else if (response.statusCode() == 503) {
+                if (measuring) {
+                    endpointStats.shed.increment();
+                }
+            } else if (measuring) {
+                endpointStats.errors.increment();
+            }
+        }
+
+        private void onSuccess(Endpoint endpoint, HttpResponse<String> response) throws IOException {
+            switch (endpoint) {
+                case LOGIN -> {
+                    JsonNode body = objectMapper.readTree(response.body());
+                    accessToken = body.get("token").asText();
+                    refreshToken = body.get("refreshToken").asText();
+                }
+                case REFRESH -> {
+                    JsonNode body = objectMapper.readTree(response.body());
+                    accessToken = body.get("accessToken").asText();
+                    refreshToken = body.get("refreshToken").asText();
+                }
+                case CREATE_NOTE -> noteIds.addLast(objectMapper.readTree(response.body()).get("id").asLong());
+                case DELETE_NOTE -> noteIds.pollFirst();
+                default -> {
+                }
+            }
+        }
+
+        private URI noteUri(Long id) {
+            return URI.create(baseUrl + "/api/notes/" + id);
+        }
+    }
+}
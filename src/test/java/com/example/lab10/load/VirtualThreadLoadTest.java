@@ -0,0 +1,20 @@
+package com.example.lab10.load;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.threads.virtual.enabled=true", "rate-limit.enabled=false"})
+@Import(AbstractThreadModelLoadTest.ThreadProbeConfig.class)
+class VirtualThreadLoadTest extends AbstractThreadModelLoadTest {
+
+    @Override
+    String mode() {
+        return "virtual";
+    }
+
+    @Override
+    boolean expectVirtualRequestThreads() {
+        return true;
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.lab10.repository;
+
+import com.example.lab10.dto.NoteCursor;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Seeds H2 with realistic volumes, then records the plan and latency of every query shape
+ * used by NoteRepository and RefreshTokenRepository, before and after the index migrations.
+ * The report lands in target/query-plans.txt; the assertions pin the plans so a dropped or
+ * unused index fails the build. Seeding takes a while, so it runs with mvn test -Pload-test.
+ */
+@Tag("load")
+class QueryPlanBenchmarkTest {
+
+    private static final int USERS = 500;
+    private static final int NOTES_PER_USER = 200;
+    private static final int TOKENS_PER_USER = 20;
+    private static final int ITERATIONS = 200;
+
+    // Last schema version before the performance indexes (V6+)
+    private static final String BASELINE_VERSION = "5";
+
+    private static final Timestamp START = Timestamp.valueOf(NoteCursor.START.createdAt());
+    private static final Timestamp PAGE_CURSOR = Timestamp.valueOf("2024-01-01 01:00:00");
+
+    private static final String PAGE_SQL = "SELECT id, title, content, created_at, user_id FROM notes WHERE user_id = ? "
+            + "AND created_at <= ? AND (created_at < ? OR id < ?) "
+            + "ORDER BY user_id, created_at DESC, id DESC LIMIT ?";
+
+    // H2 appends this when the ORDER BY is satisfied entirely by index order
+    private static final String FULLY_INDEX_SORTED = "/* index sorted */";
+
+    // Mirrors the SQL in NoteRepository and RefreshTokenRepository
+    private static final Map<String, QueryShape> SHAPES = new LinkedHashMap<>();
+
+    static {
+        SHAPES.put("notes.findByUserId", new QueryShape(
+                "SELECT * FROM notes WHERE user_id = ?", 42L));
+        SHAPES.put("notes.findPageByUserId.first", new QueryShape(PAGE_SQL, 42L, START, START, Long.MAX_VALUE, 21));
+        SHAPES.put("notes.findPageByUserId.next", new QueryShape(
+                PAGE_SQL, 42L, PAGE_CURSOR, PAGE_CURSOR, 1_000_000L, 21));
+        SHAPES.put("notes.streamByUserId", new QueryShape(
+                "SELECT id, title, content, created_at, user_id FROM notes WHERE user_id = ? "
+                        + "AND created_at <= ? ORDER BY user_id, created_at DESC, id DESC", 42L, START));
+        SHAPES.put("refreshTokens.findByToken", new QueryShape(
+                "SELECT * FROM refresh_tokens WHERE token = ?", "token-42-7"));
+        SHAPES.put("refreshTokens.deleteByUserId", new QueryShape(
+                "SELECT id FROM refresh_tokens WHERE user_id = ?", 42L));
+        SHAPES.put("refreshTokens.expired", new QueryShape(
+                "SELECT id FROM refresh_tokens WHERE expiry_date < ? LIMIT ?",
+                Timestamp.from(Instant.parse("2024-01-01T00:10:00Z")), 500));
+    }
+
+    private static final StringBuilder report = new StringBuilder();
+    private static final Map<String, String> plansBefore = new LinkedHashMap<>();
+    private static final Map<String, String> plansAfter = new LinkedHashMap<>();
+
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void seedAndMeasure() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:queryplans;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        Flyway.configure().dataSource(dataSource).target(BASELINE_VERSION).load().migrate();
+        seed();
+        measure("before (V" + BASELINE_VERSION + ")", plansBefore);
+
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        jdbcTemplate.execute("ANALYZE");
+        measure("after (latest)", plansAfter);
+    }
+
+    @AfterAll
+    static void writeReport() throws IOException {
+        Path target = Path.of("target");
+        Files.createDirectories(target);
+        Files.writeString(target.resolve("query-plans.txt"), report);
+    }
+
+    private static void seed() {
+        jdbcTemplate.update("INSERT INTO users (id, username, email, password) "
+                + "SELECT X, 'user' || X, 'user' || X || '@test.com', 'x' FROM SYSTEM_RANGE(1, " + USERS + ")");
+        // Notes are interleaved across users, as they would be in production
+        jdbcTemplate.update("INSERT INTO notes (title, content, created_at, user_id) "
+                + "SELECT 'Note ' || X, 'Content of note ' || X, "
+                + "DATEADD('SECOND', X, TIMESTAMP '2024-01-01 00:00:00'), MOD(X, " + USERS + ") + 1 "
+                + "FROM SYSTEM_RANGE(1, " + USERS * NOTES_PER_USER + ")");
+        jdbcTemplate.update("INSERT INTO refresh_tokens (token, user_id, expiry_date) "
+                + "SELECT 'token-' || (MOD(X, " + USERS + ") + 1) || '-' || (X / " + USERS + "), "
+                + "MOD(X, " + USERS + ") + 1, DATEADD('SECOND', X, TIMESTAMP '2024-01-01 00:00:00') "
+                + "FROM SYSTEM_RANGE(0, " + (USERS * TOKENS_PER_USER - 1) + ")");
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    private static void measure(String label, Map<String, String> plans) {
+        report.append("=== ").append(label).append(" ===\n");
+        for (Map.Entry<String, QueryShape> entry : SHAPES.entrySet()) {
+            QueryShape shape = entry.getValue();
+            String plan = String.join(" ",
+                    jdbcTemplate.queryForList("EXPLAIN " + shape.sql(), String.class, shape.params()));
+            plans.put(entry.getKey(), plan);
+
+            for (int i = 0; i < ITERATIONS / 10; i++) {
+                jdbcTemplate.queryForList(shape.sql(), shape.params()); // warm-up
+            }
+            List<Long> samples = new ArrayList<>();
+            for (int i = 0; i < ITERATIONS; i++) {
+                long start = System.nanoTime();
+                jdbcTemplate.queryForList(shape.sql(), shape.params());
+                samples.add(System.nanoTime() - start);
+            }
+            samples.sort(null);
+
+            report.append(String.format("%-32s p50=%8.1fus p99=%8.1fus%n    %s%n", entry.getKey(),
+                    samples.get(ITERATIONS / 2) / 1000.0, samples.get(ITERATIONS * 99 / 100) / 1000.0,
+                    plan.replaceAll("\\s+", " ")));
+        }
+    }
+
+    @Test
+    void newestFirstReadsUseCompositeIndexWithoutSorting() {
+        for (String shape : List.of("notes.findPageByUserId.first", "notes.findPageByUserId.next",
+                "notes.streamByUserId")) {
+            String plan = plansAfter.get(shape);
+            assertTrue(plan.contains("IDX_NOTES_USER_CREATED"), shape + " does not use the composite index: " + plan);
+            assertTrue(plan.contains(FULLY_INDEX_SORTED), shape + " still sorts: " + plan);
+            assertFalse(plansBefore.get(shape).contains(FULLY_INDEX_SORTED), "Baseline unexpectedly avoided the sort");
+        }
+    }
+
+    @Test
+    void refreshTokenQueriesUseIndexes() {
+        // H2 already indexes the user_id foreign key, so only require that some index is used
+        assertFalse(plansAfter.get("refreshTokens.deleteByUserId").contains("tableScan"),
+                plansAfter.get("refreshTokens.deleteByUserId"));
+        assertTrue(plansAfter.get("refreshTokens.expired").contains("IDX_REFRESH_TOKENS_EXPIRY"),
+                plansAfter.get("refreshTokens.expired"));
+        assertFalse(plansAfter.get("refreshTokens.findByToken").contains("tableScan"),
+                plansAfter.get("refreshTokens.findByToken"));
+    }
+
+    @Test
+    void noQueryShapeScansWholeTable() {
+        plansAfter.forEach((shape, plan) -> assertFalse(plan.contains("tableScan"), shape + " scans: " + plan));
+    }
+
+    private record QueryShape(String sql, Object... params) {
+    }
+}
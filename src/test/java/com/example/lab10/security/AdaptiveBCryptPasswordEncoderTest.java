@@ -0,0 +1,67 @@
+package com.example.lab10.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveBCryptPasswordEncoderTest {
+
+    @Test
+    void testStrengthFitsLatencyBudget() {
+        assertEquals(11, AdaptiveBCryptPasswordEncoder.strengthFor(80, 250));
+        assertEquals(13, AdaptiveBCryptPasswordEncoder.strengthFor(20, 250));
+        // Slow hardware never drops below the minimum, fast hardware never exceeds the maximum
+        assertEquals(AdaptiveBCryptPasswordEncoder.MIN_STRENGTH, AdaptiveBCryptPasswordEncoder.strengthFor(300, 250));
+        assertEquals(AdaptiveBCryptPasswordEncoder.MAX_STRENGTH, AdaptiveBCryptPasswordEncoder.strengthFor(0.01, 250));
+    }
+
+    @Test
+    void testUpgradeOnlyWhenStoredCostIsLower() {
+        AdaptiveBCryptPasswordEncoder encoder = new AdaptiveBCryptPasswordEncoder(5);
+
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("secret")));
+        // A node that calibrated lower must not downgrade hashes written by a faster one
+        assertFalse(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("secret")));
+        assertFalse(encoder.upgradeEncoding(encoder.encode("secret")));
+        assertFalse(encoder.upgradeEncoding(null));
+    }
+
+    @Test
+    void testLegacyHashIsRehashedOnSuccessfulLogin() {
+        AdaptiveBCryptPasswordEncoder bcrypt = new AdaptiveBCryptPasswordEncoder(5);
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+
+        // Stored before hashes carried an {id} prefix, at a different cost
+        AtomicReference<String> stored = new AtomicReference<>(new BCryptPasswordEncoder(4).encode("secret"));
+        AtomicReference<Integer> upgrades = new AtomicReference<>(0);
+
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setPasswordEncoder(encoder);
+        provider.setUserDetailsService(email -> new AuthenticatedUser(1L, email, stored.get(),
+                List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+        provider.setUserDetailsPasswordService((UserDetails user, String newPassword) -> {
+            stored.set(newPassword);
+            upgrades.set(upgrades.get() + 1);
+            return new AuthenticatedUser(1L, user.getUsername(), newPassword, user.getAuthorities());
+        });
+
+        provider.authenticate(new UsernamePasswordAuthenticationToken("user@test.com", "secret"));
+        assertEquals(1, upgrades.get());
+        assertTrue(stored.get().startsWith("{bcrypt}$2a$05$"), stored.get());
+
+        // Already current: no second rehash
+        provider.authenticate(new UsernamePasswordAuthenticationToken("user@test.com", "secret"));
+        assertEquals(1, upgrades.get());
+    }
+}
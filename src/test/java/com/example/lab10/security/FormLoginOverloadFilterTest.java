@@ -0,0 +1,34 @@
+package com.example.lab10.security;
+
+import com.example.lab10.exception.ServiceUnavailableException;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FormLoginOverloadFilterTest {
+
+    private final FormLoginOverloadFilter filter = new FormLoginOverloadFilter();
+
+    @Test
+    void testSaturatedHashingPoolIsA503() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("POST", "/login"), response, (request, res) -> {
+            throw new ServiceUnavailableException("Authentication service is busy, please retry");
+        });
+
+        assertEquals(503, response.getStatus());
+        assertEquals("1", response.getHeader("Retry-After"));
+        assertEquals("Authentication service is busy, please retry", response.getContentAsString());
+    }
+
+    @Test
+    void testOtherFailuresPassThrough() {
+        assertThrows(IllegalStateException.class, () -> filter.doFilter(new MockHttpServletRequest("POST", "/login"),
+                new MockHttpServletResponse(), (request, res) -> {
+                    throw new IllegalStateException("boom");
+                }));
+    }
+}
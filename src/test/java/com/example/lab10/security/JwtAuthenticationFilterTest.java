@@ -0,0 +1,89 @@
+package com.example.lab10.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class JwtAuthenticationFilterTest {
+
+    private final JwtUtils jwtUtils = new JwtUtils();
+    private final CustomUserDetailsService userDetailsService = mock(CustomUserDetailsService.class);
+    private final TokenRevocationRegistry revocations = new TokenRevocationRegistry();
+    private final JwtAuthenticationFilter filter = new JwtAuthenticationFilter(jwtUtils, userDetailsService,
+            new PrincipalCache(100, 60000), revocations);
+
+    @BeforeEach
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testTokenWithClaims_AuthenticatesWithoutLoadingTheUser() throws Exception {
+        String token = jwtUtils.generateJwtToken(7L, "alice@test.com", List.of("ROLE_USER"));
+
+        Authentication authentication = authenticate(token);
+
+        assertNotNull(authentication);
+        AuthenticatedUser principal = (AuthenticatedUser) authentication.getPrincipal();
+        assertEquals(7L, principal.getId());
+        assertEquals("alice@test.com", principal.getUsername());
+        assertEquals(List.of(new SimpleGrantedAuthority("ROLE_USER")),
+                List.<GrantedAuthority>copyOf(authentication.getAuthorities()));
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void testRolesWithoutPrefix_AreNormalized() throws Exception {
+        String token = jwtUtils.generateJwtToken(7L, "alice@test.com", List.of("ADMIN"));
+
+        assertTrue(authenticate(token).getAuthorities().contains(new SimpleGrantedAuthority("ROLE_ADMIN")));
+    }
+
+    @Test
+    void testRevokedUser_TokensIssuedBeforeAreRejected() throws Exception {
+        String token = jwtUtils.generateJwtToken(7L, "alice@test.com", List.of("ROLE_USER"));
+        String otherUser = jwtUtils.generateJwtToken(8L, "bob@test.com", List.of("ROLE_USER"));
+        assertNotNull(authenticate(token));
+
+        revocations.revokeAll(7L);
+
+        assertNull(authenticate(token));
+        assertNotNull(authenticate(otherUser));
+
+        // iat has second precision: a token from a later second is accepted again
+        Thread.sleep(1100);
+        assertNotNull(authenticate(jwtUtils.generateJwtToken(7L, "alice@test.com", List.of("ROLE_USER"))));
+    }
+
+    @Test
+    void testLegacyTokenWithoutUserId_FallsBackToUserDetailsService() throws Exception {
+        when(userDetailsService.loadUserByUsername("carol@test.com")).thenReturn(new AuthenticatedUser(9L,
+                "carol@test.com", "hash", List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+        String token = jwtUtils.generateJwtToken("carol@test.com", List.of("ROLE_USER"));
+
+        assertEquals(9L, ((AuthenticatedUser) authenticate(token).getPrincipal()).getId());
+        assertNull(authenticate(token + "x")); // Bad signature
+        verify(userDetailsService, times(1)).loadUserByUsername("carol@test.com");
+    }
+
+    private Authentication authenticate(String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/notes");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
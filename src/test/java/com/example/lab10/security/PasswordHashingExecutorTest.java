@@ -0,0 +1,173 @@
+package com.example.lab10.security;
+
+import com.example.lab10.exception.ServiceUnavailableException;
+import com.example.lab10.repository.NoteRepository;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.support.JdbcTransactionManager;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHashingExecutorTest {
+
+    private static final int REQUEST_WORKERS = 8;
+    private static final int MAX_IN_FLIGHT_LOGINS = 32;
+    private static final long LOGIN_INTERVAL_MILLIS = 2;
+    private static final long READ_INTERVAL_MILLIS = 10;
+    private static final long STORM_MILLIS = 3000;
+
+    @Test
+    void testSaturatedPoolRejectsFast() throws Exception {
+        PasswordHashingExecutor executor = new PasswordHashingExecutor(1, 1, 2000);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            // One running, one queued: the pool is full
+            Thread running = new Thread(() -> executor.execute(() -> await(release)));
+            Thread queued = new Thread(() -> executor.execute(() -> await(release)));
+            running.start();
+            waitUntil(() -> executor.activeCount() == 1);
+            queued.start();
+            waitUntil(() -> executor.queueDepth() == 1);
+
+            long start = System.nanoTime();
+            assertThrows(ServiceUnavailableException.class, () -> executor.execute(() -> true));
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 50, "Rejection was not fast");
+            assertEquals(1, executor.rejectedCount());
+
+            release.countDown();
+            running.join();
+            queued.join();
+            assertEquals(2, executor.hashCount());
+            assertTrue(executor.maxQueueWaitNanos() > 0);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    // Wall-clock p99 comparison, so it runs with the load tests (mvn test -Pload-test)
+    @Test
+    @Tag("load")
+    void testNoteReadLatencyStaysFlatDuringLoginStorm() throws Exception {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:hashstorm;DB_CLOSE_DELAY=-1", "sa", "");
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO users (id, username, email, password) VALUES (1, 'u', 'u@test.com', 'x')");
+        jdbcTemplate.update("INSERT INTO notes (title, content, user_id) "
+                + "SELECT 'Note ' || X, 'Content ' || X, 1 FROM SYSTEM_RANGE(1, 1000)");
+        NoteRepository noteRepository = new NoteRepository(jdbcTemplate, List.of(), new JdbcTransactionManager(dataSource));
+        Runnable noteRead = () -> noteRepository.findPageByUserId(1L, null, 20);
+        for (int i = 0; i < 2000; i++) {
+            noteRead.run(); // warm-up, so the quiet baseline is not measuring the JIT
+        }
+
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(10);
+        String hash = bcrypt.encode("password");
+
+        long quiet = readP99(noteRead, null, hash);
+        long unbounded = readP99(noteRead, bcrypt, hash);
+        PasswordHashingExecutor executor = new PasswordHashingExecutor(1, 4, 2000);
+        long bounded;
+        try {
+            bounded = readP99(noteRead, new BoundedPasswordEncoder(bcrypt, executor), hash);
+        } finally {
+            executor.shutdown();
+        }
+
+        String p99s = String.format("note read p99: quiet %.1f ms, hashing on request threads %.1f ms, "
+                + "bounded pool %.1f ms", quiet / 1e6, unbounded / 1e6, bounded / 1e6);
+        assertTrue(executor.rejectedCount() > 0, "Storm never hit the queue limit");
+        assertTrue(bounded * 4 < unbounded, "Bounded pool did not protect note reads, " + p99s);
+        assertTrue(bounded < quiet + TimeUnit.MILLISECONDS.toNanos(200), "Note reads degraded during the storm, " + p99s);
+    }
+
+    /**
+     * Models a servlet container: REQUEST_WORKERS threads serve logins and note reads from one
+     * FIFO queue. Returns the p99 of note reads, measured from arrival to completion, while logins
+     * arrive every LOGIN_INTERVAL_MILLIS (no logins when encoder is null).
+     */
+    private static long readP99(Runnable noteRead, PasswordEncoder encoder, String hash) throws Exception {
+        ExecutorService workers = Executors.newFixedThreadPool(REQUEST_WORKERS);
+        AtomicBoolean running = new AtomicBoolean(true);
+        Semaphore inFlightLogins = new Semaphore(MAX_IN_FLIGHT_LOGINS);
+        Thread storm = new Thread(() -> {
+            while (running.get() && encoder != null) {
+                if (inFlightLogins.tryAcquire()) {
+                    workers.execute(() -> {
+                        try {
+                            encoder.matches("password", hash);
+                        } catch (ServiceUnavailableException e) {
+                            // 503: the worker is released immediately
+                        } finally {
+                            inFlightLogins.release();
+                        }
+                    });
+                }
+                sleep(LOGIN_INTERVAL_MILLIS);
+            }
+        });
+        storm.start();
+
+        List<Future<Long>> reads = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(STORM_MILLIS);
+        while (System.nanoTime() < deadline) {
+            long arrival = System.nanoTime();
+            reads.add(workers.submit(() -> {
+                noteRead.run();
+                return System.nanoTime() - arrival;
+            }));
+            sleep(READ_INTERVAL_MILLIS);
+        }
+        running.set(false);
+        storm.join();
+
+        List<Long> samples = new ArrayList<>();
+        for (Future<Long> read : reads) {
+            samples.add(read.get(1, TimeUnit.MINUTES));
+        }
+        workers.shutdown();
+        assertTrue(workers.awaitTermination(1, TimeUnit.MINUTES));
+        samples.sort(null);
+        return samples.get(samples.size() * 99 / 100);
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntil(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
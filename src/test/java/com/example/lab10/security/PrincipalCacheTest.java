@@ -0,0 +1,54 @@
+package com.example.lab10.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrincipalCacheTest {
+
+    private final PrincipalCache cache = new PrincipalCache(100, 60000);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testInvalidationInsideATransactionWaitsForCommit() {
+        cache.get("alice@test.com", this::load);
+
+        TransactionSynchronizationManager.initSynchronization();
+        cache.invalidateAfterCommit("alice@test.com");
+        // A miss now would read the row as it was before the transaction
+        cache.get("alice@test.com", this::load);
+        assertEquals(1, loads.get());
+
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        cache.get("alice@test.com", this::load);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testInvalidationOutsideATransactionIsImmediate() {
+        cache.get("alice@test.com", this::load);
+        cache.invalidateAfterCommit("alice@test.com");
+        cache.get("alice@test.com", this::load);
+        assertEquals(2, loads.get());
+    }
+
+    private UserDetails load(String email) {
+        loads.incrementAndGet();
+        return new AuthenticatedUser(1L, email, "x", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+    }
+}
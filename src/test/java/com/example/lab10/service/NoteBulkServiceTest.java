@@ -0,0 +1,202 @@
+package com.example.lab10.service;
+
+import com.example.lab10.dto.BulkNoteOperation;
+import com.example.lab10.dto.BulkNoteResult;
+import com.example.lab10.exception.BadRequestException;
+import com.example.lab10.model.Note;
+import com.example.lab10.repository.NoteChangeListener;
+import com.example.lab10.repository.NoteRepository;
+import com.example.lab10.repository.UserRepository;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.lab10.service.NoteTestFixture.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class NoteBulkServiceTest {
+
+    private static final int BENCHMARK_NOTES = 500;
+    private static final int BENCHMARK_ROUNDS = 5;
+
+    private static JdbcTemplate jdbcTemplate;
+
+    private final List<Note> savedEvents = new ArrayList<>();
+    private NoteRepository noteRepository;
+    private NoteService noteService;
+    private NoteBulkService bulkService;
+
+    @BeforeAll
+    static void setUpDatabase() {
+        jdbcTemplate = new JdbcTemplate(database(url("bulktest")));
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM notes");
+        noteRepository = noteRepository(jdbcTemplate, new NoteChangeListener() {
+            @Override
+            public void noteSaved(Note note) {
+                savedEvents.add(note);
+            }
+
+            @Override
+            public void noteDeleted(Long userId, Long noteId) {
+            }
+        });
+        noteService = noteService(noteRepository, mock(UserRepository.class));
+        bulkService = new NoteBulkService(noteRepository, noteService,
+                Validation.buildDefaultValidatorFactory().getValidator());
+        signIn(ALICE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testUpdateEventsCarryTheStoredCreationTime() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 1, 9, 30);
+        jdbcTemplate.update("INSERT INTO notes (title, content, created_at, user_id) VALUES ('Old', 'x', ?, 1)",
+                Timestamp.valueOf(createdAt));
+        long id = jdbcTemplate.queryForObject("SELECT id FROM notes WHERE user_id = 1", Long.class);
+
+        bulkService.apply(List.of(operation(BulkNoteOperation.Type.UPDATE, id, "Bulk", "y")));
+        Note edited = new Note(); // created_at defaults to now, which is not what is stored
+        edited.setId(id);
+        edited.setUserId(1L);
+        edited.setTitle("Saved");
+        edited.setContent("z");
+        noteRepository.save(edited);
+
+        assertEquals(List.of("Bulk", "Saved"), savedEvents.stream().map(Note::getTitle).toList());
+        savedEvents.forEach(event -> assertEquals(createdAt, event.getCreatedAt()));
+        assertEquals(createdAt, edited.getCreatedAt());
+    }
+
+    @Test
+    void testMixedOperationsReturnResultsInRequestOrder() {
+        jdbcTemplate.update("INSERT INTO notes (title, content, user_id) VALUES ('Mine', 'x', 1)");
+        jdbcTemplate.update("INSERT INTO notes (title, content, user_id) VALUES ('Bob''s', 'x', 2)");
+        long mine = jdbcTemplate.queryForObject("SELECT id FROM notes WHERE user_id = 1", Long.class);
+        long bobs = jdbcTemplate.queryForObject("SELECT id FROM notes WHERE user_id = 2", Long.class);
+
+        List<BulkNoteResult> results = bulkService.apply(List.of(
+                operation(BulkNoteOperation.Type.CREATE, null, "First", "one"),
+                operation(BulkNoteOperation.Type.UPDATE, mine, "Renamed", "two"),
+                operation(BulkNoteOperation.Type.CREATE, null, "", "blank title"),
+                operation(BulkNoteOperation.Type.DELETE, bobs, null, null),
+                operation(BulkNoteOperation.Type.CREATE, null, "Second", "three"),
+                operation(BulkNoteOperation.Type.UPDATE, null, "No id", "four")));
+
+        assertEquals(List.of(201, 200, 400, 404, 201, 400), results.stream().map(BulkNoteResult::getStatus).toList());
+        assertEquals("Title is required", results.get(2).getError());
+        assertEquals("Note id is required", results.get(5).getError());
+        assertEquals("First", titleOf(results.get(0).getId()));
+        assertEquals("Second", titleOf(results.get(4).getId()));
+        assertEquals("Renamed", titleOf(mine));
+        assertEquals("Bob's", titleOf(bobs));
+    }
+
+    @Test
+    void testOperationsTakeEffectInRequestOrder() {
+        jdbcTemplate.update("INSERT INTO notes (title, content, user_id) VALUES ('Doomed', 'x', 1)");
+        jdbcTemplate.update("INSERT INTO notes (title, content, user_id) VALUES ('Kept', 'x', 1)");
+        long doomed = jdbcTemplate.queryForObject("SELECT id FROM notes WHERE title = 'Doomed'", Long.class);
+        long kept = jdbcTemplate.queryForObject("SELECT id FROM notes WHERE title = 'Kept'", Long.class);
+
+        List<BulkNoteResult> results = bulkService.apply(List.of(
+                operation(BulkNoteOperation.Type.DELETE, doomed, null, null),
+                operation(BulkNoteOperation.Type.UPDATE, doomed, "Too late", "x"),
+                operation(BulkNoteOperation.Type.UPDATE, kept, "First", "x"),
+                operation(BulkNoteOperation.Type.UPDATE, kept, "Second", "x"),
+                operation(BulkNoteOperation.Type.DELETE, doomed, null, null)));
+
+        assertEquals(List.of(204, 404, 200, 200, 404), results.stream().map(BulkNoteResult::getStatus).toList());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM notes WHERE id = ?", Integer.class, doomed));
+        assertEquals("Second", titleOf(kept));
+    }
+
+    @Test
+    void testRejectsEmptyAndOversizedRequests() {
+        assertThrows(BadRequestException.class, () -> bulkService.apply(List.of()));
+        List<BulkNoteOperation> tooMany = new ArrayList<>();
+        for (int i = 0; i <= NoteBulkService.MAX_OPERATIONS; i++) {
+            tooMany.add(operation(BulkNoteOperation.Type.CREATE, null, "t", "c"));
+        }
+        assertThrows(BadRequestException.class, () -> bulkService.apply(tooMany));
+    }
+
+    // Wall-clock comparison, so it runs with the load tests (mvn test -Pload-test)
+    @Test
+    @Tag("load")
+    void testBulkIsFasterThanOneAtATime() {
+        long sequential = Long.MAX_VALUE;
+        long bulk = Long.MAX_VALUE;
+        // Best of several rounds; the first round of each also warms up the JIT
+        for (int round = 0; round < BENCHMARK_ROUNDS; round++) {
+            sequential = Math.min(sequential, timeOneAtATime());
+            bulk = Math.min(bulk, timeBulk());
+        }
+        assertTrue(bulk < sequential, String.format("Bulk path took %.1f ms, one at a time %.1f ms",
+                bulk / 1e6, sequential / 1e6));
+    }
+
+    private long timeOneAtATime() {
+        long start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_NOTES; i++) {
+            noteService.createNote(dto("Note " + i, "content"));
+        }
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM notes WHERE user_id = 1", Long.class);
+        for (Long id : ids) {
+            noteService.updateNote(id, dto("Updated", "content"));
+        }
+        for (Long id : ids) {
+            noteService.deleteNote(id);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private long timeBulk() {
+        long start = System.nanoTime();
+        List<BulkNoteOperation> creates = new ArrayList<>();
+        for (int i = 0; i < BENCHMARK_NOTES; i++) {
+            creates.add(operation(BulkNoteOperation.Type.CREATE, null, "Note " + i, "content"));
+        }
+        List<Long> ids = bulkService.apply(creates).stream().map(BulkNoteResult::getId).toList();
+        List<BulkNoteOperation> updatesAndDeletes = new ArrayList<>();
+        for (Long id : ids) {
+            updatesAndDeletes.add(operation(BulkNoteOperation.Type.UPDATE, id, "Updated", "content"));
+            updatesAndDeletes.add(operation(BulkNoteOperation.Type.DELETE, id, null, null));
+        }
+        bulkService.apply(updatesAndDeletes);
+        long elapsed = System.nanoTime() - start;
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM notes", Integer.class));
+        return elapsed;
+    }
+
+    private static String titleOf(Long id) {
+        return jdbcTemplate.queryForObject("SELECT title FROM notes WHERE id = ?", String.class, id);
+    }
+
+    private static BulkNoteOperation operation(BulkNoteOperation.Type type, Long id, String title, String content) {
+        BulkNoteOperation operation = new BulkNoteOperation();
+        operation.setType(type);
+        operation.setId(id);
+        operation.setTitle(title);
+        operation.setContent(content);
+        return operation;
+    }
+}
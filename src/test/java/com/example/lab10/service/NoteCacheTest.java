@@ -0,0 +1,217 @@
+package com.example.lab10.service;
+
+import com.example.lab10.model.Note;
+import com.example.lab10.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.example.lab10.service.NoteTestFixture.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class NoteCacheTest {
+
+    private static JdbcTemplate jdbcTemplate;
+
+    private NoteCache noteCache;
+    private NoteService noteService;
+
+    @BeforeAll
+    static void setUpDatabase() {
+        jdbcTemplate = new JdbcTemplate(database(url("notecachetest")));
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM notes");
+        noteCache = new NoteCache(true, 1 << 20, 300);
+        noteService = new NoteService(noteRepository(jdbcTemplate, noteCache),
+                mock(UserRepository.class), noteCache);
+        signIn(ALICE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testReadsAreServedFromTheCache() {
+        Note note = noteService.createNote(dto("Cached", "body"));
+
+        assertEquals(1, noteService.getMyNotes().size());
+        // Behind the repository's back: only a cached read still sees the note
+        jdbcTemplate.update("DELETE FROM notes");
+        assertEquals(1, noteService.getMyNotes().size());
+        assertEquals("Cached", noteService.getNoteById(note.getId()).getTitle());
+        assertThrows(RuntimeException.class, () -> noteService.getNoteById(note.getId() + 1000));
+
+        var stats = noteCache.nativeCache().stats();
+        assertEquals(1, stats.missCount());
+        assertEquals(3, stats.hitCount());
+    }
+
+    @Test
+    void testCachedReadsCarryTheRevisionAndUpdateTime() {
+        Note created = noteService.createNote(dto("Synced", "body"));
+
+        Note cold = noteService.getNoteById(created.getId()); // No entry yet: read from the table
+        noteService.getMyNotes();
+        Note cached = noteService.getNoteById(created.getId());
+
+        assertEquals(1, noteCache.nativeCache().stats().hitCount());
+        assertNotNull(cold.getRevision());
+        assertNotNull(cold.getUpdatedAt());
+        assertEquals(cold, cached);
+        assertEquals(cold.getRevision(), noteService.getMyNotes().get(0).getRevision());
+    }
+
+    @Test
+    void testWritesInvalidateTheUsersEntry() {
+        Note note = noteService.createNote(dto("First", "v1"));
+        assertEquals(1, noteService.getMyNotes().size());
+
+        noteService.createNote(dto("Second", "v1"));
+        assertEquals(2, noteService.getMyNotes().size());
+
+        noteService.updateNote(note.getId(), dto("First", "v2"));
+        assertEquals("v2", noteService.getNoteById(note.getId()).getContent());
+
+        noteService.deleteNote(note.getId());
+        assertEquals(1, noteService.getMyNotes().size());
+        assertThrows(RuntimeException.class, () -> noteService.getNoteById(note.getId()));
+    }
+
+    @Test
+    void testCallersCannotModifyCachedNotes() {
+        Note note = noteService.createNote(dto("Original", "body"));
+        noteService.getMyNotes().get(0).setTitle("Tampered");
+        noteService.getNoteById(note.getId()).setTitle("Tampered");
+
+        assertEquals("Original", noteService.getMyNotes().get(0).getTitle());
+    }
+
+    @Test
+    void testEntriesAreWeightedByContentLength() {
+        NoteCache small = new NoteCache(true, 4096, 300);
+        Note big = new Note();
+        big.setId(1L);
+        big.setContent("x".repeat(4096));
+
+        small.getNotes(1L, id -> List.of(big));
+        small.nativeCache().cleanUp();
+
+        assertEquals(0, small.nativeCache().estimatedSize(), "One heavy list must not fit a 4 KB cache");
+        assertTrue(small.nativeCache().stats().evictionWeight() > 4096);
+    }
+
+    @Test
+    void testInvalidationWaitsForALoadInProgress() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Note stale = new Note();
+        stale.setId(1L);
+        stale.setContent("stale");
+
+        // A load that read the table just before a write committed
+        CompletableFuture<List<Note>> load = CompletableFuture.supplyAsync(() -> noteCache.getNotes(1L, id -> {
+            loading.countDown();
+            await(release);
+            return List.of(stale);
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        Note written = new Note();
+        written.setId(1L);
+        written.setUserId(1L);
+        CompletableFuture<Void> invalidation = CompletableFuture.runAsync(() -> noteCache.noteSaved(written));
+        assertThrows(TimeoutException.class, () -> invalidation.get(200, TimeUnit.MILLISECONDS));
+
+        release.countDown();
+        invalidation.get(5, TimeUnit.SECONDS);
+        assertEquals("stale", load.get(5, TimeUnit.SECONDS).get(0).getContent());
+
+        Note fresh = new Note();
+        fresh.setId(1L);
+        fresh.setContent("fresh");
+        assertEquals("fresh", noteCache.getNotes(1L, id -> List.of(fresh)).get(0).getContent());
+    }
+
+    @Test
+    void testConcurrentWritersAlwaysReadTheirOwnWrites() throws Exception {
+        int writers = 4;
+        int rounds = 150;
+        List<Long> ids = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            ids.add(noteService.createNote(dto("Writer " + w, "0")).getId());
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(writers + 2);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        try {
+            // Readers keep reloading the entry while it is being invalidated
+            List<Future<?>> readers = new ArrayList<>();
+            for (int r = 0; r < 2; r++) {
+                readers.add(pool.submit(() -> {
+                    signIn(ALICE);
+                    while (writing.get()) {
+                        assertEquals(writers, noteService.getMyNotes().size());
+                    }
+                    return null;
+                }));
+            }
+            List<Future<?>> writes = new ArrayList<>();
+            for (Long id : ids) {
+                writes.add(pool.submit(() -> {
+                    signIn(ALICE);
+                    for (int i = 1; i <= rounds; i++) {
+                        String content = String.valueOf(i);
+                        noteService.updateNote(id, dto("Writer", content));
+                        assertEquals(content, noteService.getNoteById(id).getContent());
+                        assertEquals(content, noteService.getMyNotes().stream()
+                                .filter(note -> note.getId().equals(id)).findFirst().orElseThrow().getContent());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> write : writes) {
+                write.get(60, TimeUnit.SECONDS);
+            }
+            writing.set(false);
+            for (Future<?> reader : readers) {
+                reader.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            writing.set(false);
+            pool.shutdownNow();
+        }
+
+        for (Note note : noteService.getMyNotes()) {
+            assertEquals(String.valueOf(rounds), note.getContent());
+        }
+        assertTrue(noteCache.nativeCache().stats().hitCount() > 0);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
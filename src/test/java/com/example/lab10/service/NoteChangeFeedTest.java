@@ -0,0 +1,199 @@
+package com.example.lab10.service;
+
+import com.example.lab10.exception.ServiceUnavailableException;
+import com.example.lab10.model.Note;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NoteChangeFeedTest {
+
+    private static final int QUEUE_CAPACITY = 4;
+    private static final long WRITE_TIMEOUT_MS = 50;
+
+    private final CountDownLatch unblock = new CountDownLatch(1);
+    private volatile boolean blockSends;
+    private final List<RecordingEmitter> emitters = new CopyOnWriteArrayList<>();
+
+    private final NoteChangeFeed feed = new NoteChangeFeed(new ObjectMapper().registerModule(new JavaTimeModule()),
+            QUEUE_CAPACITY, 2, 5, 60000, WRITE_TIMEOUT_MS, 2) {
+        @Override
+        SseEmitter newEmitter(long timeoutMs) {
+            RecordingEmitter emitter = new RecordingEmitter(blockSends);
+            emitters.add(emitter);
+            return emitter;
+        }
+    };
+
+    @AfterEach
+    void tearDown() {
+        unblock.countDown();
+        feed.shutdown();
+    }
+
+    @Test
+    void testChangesReachEveryConnectionOfTheOwnerInOrder() {
+        feed.subscribe(1L);
+        feed.subscribe(1L);
+        feed.subscribe(2L);
+
+        feed.noteCreated(note(10L, 1L, "first"));
+        feed.noteSaved(note(10L, 1L, "second"));
+        feed.noteDeleted(1L, 10L);
+
+        for (RecordingEmitter emitter : emitters.subList(0, 2)) {
+            waitFor(() -> emitter.events().size() == 4);
+            List<String> events = emitter.events();
+            assertTrue(events.get(0).startsWith(":connected"));
+            assertTrue(events.get(1).contains("\"type\":\"CREATED\"") && events.get(1).contains("first"));
+            assertTrue(events.get(2).contains("\"type\":\"UPDATED\"") && events.get(2).contains("second"));
+            assertTrue(events.get(3).contains("\"type\":\"DELETED\"") && events.get(3).contains("\"noteId\":10"));
+            assertTrue(events.get(1).startsWith("event:note\ndata:"));
+        }
+        waitFor(() -> emitters.get(2).events().size() == 1);
+        assertFalse(emitters.get(2).events().stream().anyMatch(event -> event.contains("note")));
+    }
+
+    @Test
+    void testSlowConsumerIsDisconnectedWithoutAffectingOthers() {
+        blockSends = true;
+        feed.subscribe(1L); // Its first send blocks, so its queue only fills from here on
+        blockSends = false;
+        feed.subscribe(1L);
+
+        RecordingEmitter healthy = emitters.get(1);
+        for (int i = 0; i < QUEUE_CAPACITY + 2; i++) {
+            feed.noteSaved(note(10L, 1L, "v" + i));
+            int expected = i + 2;
+            waitFor(() -> healthy.events().size() == expected); // Keeps up, unlike the stalled one
+        }
+
+        assertEquals(1, feed.slowConsumerDropCount());
+        assertEquals(1, feed.subscriberCount());
+        unblock.countDown();
+        waitFor(() -> emitters.get(0).completed);
+    }
+
+    @Test
+    void testStalledWritesDoNotHoldBackOtherSubscribers() throws InterruptedException {
+        blockSends = true;
+        feed.subscribe(1L);
+        feed.subscribe(2L);
+        blockSends = false;
+        // Both dispatch threads are now stuck writing to a client that stopped reading
+        waitFor(() -> emitters.get(0).sending && emitters.get(1).sending);
+        feed.subscribe(3L);
+        RecordingEmitter healthy = emitters.get(2);
+
+        Thread.sleep(WRITE_TIMEOUT_MS * 2);
+        feed.abandonStalledWrites();
+
+        assertEquals(2, feed.slowConsumerDropCount());
+        assertEquals(1, feed.subscriberCount());
+        feed.noteCreated(note(10L, 3L, "first"));
+        waitFor(() -> healthy.events().size() == 2);
+        assertTrue(healthy.events().get(1).contains("first"));
+        // Completing waits for the stuck write, so it happens once that write gives up
+        assertFalse(emitters.get(0).completed || emitters.get(1).completed);
+
+        unblock.countDown();
+        waitFor(() -> emitters.get(0).completed && emitters.get(1).completed);
+        feed.noteCreated(note(11L, 3L, "second"));
+        waitFor(() -> healthy.events().size() == 3);
+    }
+
+    @Test
+    void testHeartbeatsGoToEverySubscriber() {
+        feed.subscribe(1L);
+        feed.subscribe(2L);
+
+        feed.sendHeartbeats();
+
+        for (RecordingEmitter emitter : emitters) {
+            waitFor(() -> emitter.events().size() == 2);
+            assertTrue(emitter.events().get(1).startsWith(":heartbeat"));
+        }
+    }
+
+    @Test
+    void testConnectionLimits() {
+        feed.subscribe(1L);
+        feed.subscribe(1L);
+        feed.subscribe(1L); // Over the per-user limit of 2: the oldest is closed
+
+        waitFor(() -> emitters.get(0).completed);
+        assertEquals(2, feed.subscriberCount());
+
+        feed.subscribe(2L);
+        feed.subscribe(3L);
+        feed.subscribe(4L);
+        assertThrows(ServiceUnavailableException.class, () -> feed.subscribe(5L));
+        assertEquals(5, feed.subscriberCount());
+    }
+
+    private static Note note(Long id, Long userId, String content) {
+        Note note = new Note();
+        note.setId(id);
+        note.setUserId(userId);
+        note.setTitle("Title");
+        note.setContent(content);
+        note.setCreatedAt(LocalDateTime.of(2025, 1, 1, 10, 0));
+        return note;
+    }
+
+    private static void waitFor(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out");
+            Thread.onSpinWait();
+        }
+    }
+
+    private class RecordingEmitter extends SseEmitter {
+        private final boolean block;
+        private final List<String> events = new CopyOnWriteArrayList<>();
+        private volatile boolean sending;
+        private volatile boolean completed;
+
+        RecordingEmitter(boolean block) {
+            this.block = block;
+        }
+
+        @Override
+        public void send(Set<ResponseBodyEmitter.DataWithMediaType> items) {
+            if (block) {
+                sending = true;
+                try {
+                    unblock.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            StringBuilder event = new StringBuilder();
+            items.forEach(item -> event.append(item.getData()));
+            events.add(event.toString());
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+
+        List<String> events() {
+            return events;
+        }
+    }
+}
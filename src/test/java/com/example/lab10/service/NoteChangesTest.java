@@ -0,0 +1,146 @@
+package com.example.lab10.service;
+
+import com.example.lab10.dto.NoteChanges;
+import com.example.lab10.exception.BadRequestException;
+import com.example.lab10.model.Note;
+import com.example.lab10.repository.NoteRepository;
+import com.example.lab10.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.lab10.service.NoteTestFixture.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class NoteChangesTest {
+
+    private static JdbcTemplate jdbcTemplate;
+
+    private NoteRepository noteRepository;
+    private NoteService noteService;
+
+    @BeforeAll
+    static void setUpDatabase() {
+        jdbcTemplate = new JdbcTemplate(database(url("notechangestest")));
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM notes");
+        jdbcTemplate.update("DELETE FROM note_tombstones");
+        jdbcTemplate.update("UPDATE users SET note_revision = 0");
+        noteRepository = noteRepository(jdbcTemplate);
+        noteService = noteService(noteRepository, mock(UserRepository.class));
+        signIn(BOB);
+        noteService.createNote(dto("Bob's", "never synced to alice"));
+        signIn(ALICE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testFirstSyncReturnsEveryNoteAndNoDeletes() {
+        Note kept = noteService.createNote(dto("Kept", "v1"));
+        Note gone = noteService.createNote(dto("Gone", "v1"));
+        noteService.deleteNote(gone.getId());
+
+        NoteChanges changes = noteService.getChangesSince(null, null);
+
+        assertEquals(List.of(kept.getId()), ids(changes.getChanged()));
+        assertTrue(changes.getDeleted().isEmpty());
+        assertEquals(3, changes.getRevision());
+        assertFalse(changes.isHasMore());
+        assertNotNull(changes.getChanged().get(0).getUpdatedAt());
+    }
+
+    @Test
+    void testDeltaHoldsOnlyWritesAfterTheClientsRevision() {
+        Note untouched = noteService.createNote(dto("Untouched", "v1"));
+        Note edited = noteService.createNote(dto("Edited", "v1"));
+        Note deleted = noteService.createNote(dto("Deleted", "v1"));
+        long cursor = noteService.getChangesSince(0L, null).getRevision();
+
+        noteService.updateNote(edited.getId(), dto("Edited", "v2"));
+        noteService.deleteNote(deleted.getId());
+        Note created = noteService.createNote(dto("Created", "v1"));
+
+        NoteChanges delta = noteService.getChangesSince(cursor, null);
+        assertEquals(List.of(edited.getId(), created.getId()), ids(delta.getChanged()));
+        assertEquals("v2", delta.getChanged().get(0).getContent());
+        assertEquals(List.of(deleted.getId()), delta.getDeleted());
+        assertFalse(ids(delta.getChanged()).contains(untouched.getId()));
+
+        NoteChanges nothing = noteService.getChangesSince(delta.getRevision(), null);
+        assertTrue(nothing.getChanged().isEmpty());
+        assertTrue(nothing.getDeleted().isEmpty());
+        assertEquals(delta.getRevision(), nothing.getRevision());
+    }
+
+    @Test
+    void testLimitPagesThroughChangesInRevisionOrder() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(noteService.createNote(dto("Note " + i, "v1")).getId());
+        }
+        long cursor = noteService.getChangesSince(0L, null).getRevision();
+        noteService.deleteNote(ids.get(0));
+        noteService.updateNote(ids.get(1), dto("Note 1", "v2"));
+        noteRepository.batchDeleteByIdAndUserId(List.of(ids.get(2), ids.get(3)), 1L);
+        noteService.updateNote(ids.get(4), dto("Note 4", "v2"));
+
+        List<Long> changed = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        int calls = 0;
+        NoteChanges page;
+        do {
+            page = noteService.getChangesSince(cursor, 2);
+            assertTrue(page.getChanged().size() + page.getDeleted().size() <= 2);
+            changed.addAll(ids(page.getChanged()));
+            deleted.addAll(page.getDeleted());
+            cursor = page.getRevision();
+            calls++;
+        } while (page.isHasMore());
+
+        assertEquals(3, calls);
+        assertEquals(List.of(ids.get(1), ids.get(4)), changed);
+        assertEquals(List.of(ids.get(0), ids.get(2), ids.get(3)), deleted);
+    }
+
+    @Test
+    void testRolledBackWritesLeaveNoTrace() {
+        Note note = noteService.createNote(dto("Stable", "v1"));
+        long cursor = noteService.getChangesSince(0L, null).getRevision();
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager(jdbcTemplate));
+        tx.executeWithoutResult(status -> {
+            noteService.updateNote(note.getId(), dto("Stable", "phantom"));
+            noteService.deleteNote(note.getId());
+            status.setRollbackOnly();
+        });
+
+        NoteChanges changes = noteService.getChangesSince(cursor, null);
+        assertTrue(changes.getChanged().isEmpty());
+        assertTrue(changes.getDeleted().isEmpty());
+        assertEquals(cursor, changes.getRevision());
+    }
+
+    @Test
+    void testNegativeRevisionIsRejected() {
+        assertThrows(BadRequestException.class, () -> noteService.getChangesSince(-1L, null));
+    }
+
+    private static List<Long> ids(List<Note> notes) {
+        return notes.stream().map(Note::getId).toList();
+    }
+}
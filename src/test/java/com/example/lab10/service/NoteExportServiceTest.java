@@ -0,0 +1,147 @@
+package com.example.lab10.service;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NoteExportServiceTest {
+
+    private static final int ROWS = 20_000;
+    private static final String URL = NoteTestFixture.url("exporttest") + ";LAZY_QUERY_EXECUTION=TRUE";
+
+    private static JdbcTemplate jdbcTemplate;
+    private static NoteExportService exportService;
+
+    @BeforeAll
+    static void setUp() {
+        jdbcTemplate = new JdbcTemplate(NoteTestFixture.database(URL));
+        // Alice gets the large export, bob a single awkward note
+        jdbcTemplate.update("INSERT INTO notes (title, content, created_at, user_id) "
+                + "SELECT 'Note ' || X, 'Body of note number ' || X, DATEADD('SECOND', X, TIMESTAMP '2024-01-01 00:00:00'), 1 "
+                + "FROM SYSTEM_RANGE(1, " + ROWS + ")");
+        jdbcTemplate.update("INSERT INTO notes (title, content, created_at, user_id) VALUES "
+                + "('=SUM(A1)', 'has \"quotes\", commas\nand newlines', TIMESTAMP '2024-01-01 00:00:00', 2)");
+
+        exportService = new NoteExportService(NoteTestFixture.noteRepository(jdbcTemplate));
+    }
+
+    @Test
+    void testNdjsonExport_WritesOneObjectPerLine() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(2L, NoteExportService.Format.NDJSON, out);
+
+        String body = out.toString(StandardCharsets.UTF_8);
+        assertTrue(body.startsWith("{\"id\":"));
+        assertTrue(body.contains("\"content\":\"has \\\"quotes\\\", commas\\nand newlines\""));
+        assertEquals(1, body.lines().count());
+    }
+
+    @Test
+    void testCsvExport_EscapesQuotesAndFormulas() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(2L, NoteExportService.Format.CSV, out);
+
+        String body = out.toString(StandardCharsets.UTF_8);
+        assertTrue(body.startsWith("id,title,content,created_at\r\n"));
+        assertTrue(body.contains(",\"'=SUM(A1)\",\"has \"\"quotes\"\", commas\nand newlines\","));
+    }
+
+    @Test
+    void testLargeExport_WritesRowsWhileTheCursorIsStillOpen() throws Exception {
+        RecordingDataSource recording = new RecordingDataSource();
+        NoteExportService service = new NoteExportService(NoteTestFixture.noteRepository(new JdbcTemplate(recording)));
+        LineCountingOutputStream out = new LineCountingOutputStream(recording);
+
+        service.export(1L, NoteExportService.Format.NDJSON, out);
+
+        assertEquals(ROWS, out.lines);
+        assertEquals(List.of(500), recording.fetchSizes);
+        assertTrue(recording.exhausted, "Result set was not read to the end");
+        // The first bytes went out before the last row was read, so rows were never collected first
+        assertFalse(out.exhaustedAtFirstWrite, "Nothing was written until the query had finished");
+    }
+
+    // Records the fetch size the exporter asks for and when the result set runs out
+    private static class RecordingDataSource extends DriverManagerDataSource {
+        final List<Integer> fetchSizes = new CopyOnWriteArrayList<>();
+        volatile boolean exhausted;
+
+        RecordingDataSource() {
+            super(URL, "sa", "");
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return wrap(Connection.class, super.getConnection());
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T> T wrap(Class<T> type, T target) {
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+                if (method.getName().equals("setFetchSize")) {
+                    fetchSizes.add((Integer) args[0]);
+                }
+                Object result;
+                try {
+                    result = method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+                if (result instanceof PreparedStatement statement) {
+                    return wrap(PreparedStatement.class, statement);
+                }
+                if (result instanceof ResultSet resultSet) {
+                    return wrap(ResultSet.class, resultSet);
+                }
+                if (method.getName().equals("next") && Boolean.FALSE.equals(result)) {
+                    exhausted = true;
+                }
+                return result;
+            });
+        }
+    }
+
+    private static class LineCountingOutputStream extends OutputStream {
+        private final RecordingDataSource recording;
+        private boolean written;
+        boolean exhaustedAtFirstWrite;
+        long lines;
+
+        LineCountingOutputStream(RecordingDataSource recording) {
+            this.recording = recording;
+        }
+
+        @Override
+        public void write(int b) {
+            if (!written) {
+                written = true;
+                exhaustedAtFirstWrite = recording.exhausted;
+            }
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                write(b[i]);
+            }
+        }
+    }
+}
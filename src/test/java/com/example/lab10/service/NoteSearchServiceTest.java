@@ -0,0 +1,171 @@
+package com.example.lab10.service;
+
+import com.example.lab10.dto.NoteSearchHit;
+import com.example.lab10.exception.BadRequestException;
+import com.example.lab10.model.Note;
+import com.example.lab10.repository.NoteRepository;
+import com.example.lab10.repository.UserRepository;
+import com.example.lab10.search.NoteSearchIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.lab10.service.NoteTestFixture.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class NoteSearchServiceTest {
+
+    private static JdbcTemplate jdbcTemplate;
+
+    private NoteSearchIndex index;
+    private NoteRepository noteRepository;
+    private NoteSearchService searchService;
+
+    @BeforeAll
+    static void setUpDatabase() {
+        jdbcTemplate = new JdbcTemplate(database(url("searchtest")));
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM notes");
+        index = new NoteSearchIndex();
+        noteRepository = noteRepository(jdbcTemplate, index);
+        NoteService noteService = noteService(noteRepository, mock(UserRepository.class));
+        searchService = new NoteSearchService(noteRepository, index, noteService);
+        signIn(ALICE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testTitleMatchesRankAboveContentMatches() {
+        Note inContent = save(1L, "Groceries", "remember the kubernetes upgrade");
+        Note inTitle = save(1L, "Kubernetes upgrade", "steps for the cluster");
+        save(1L, "Unrelated", "nothing to see");
+
+        List<NoteSearchHit> hits = searchService.search("Kubernetes", null);
+
+        assertEquals(List.of(inTitle.getId(), inContent.getId()), ids(hits));
+        assertTrue(hits.get(0).getScore() > hits.get(1).getScore());
+        assertEquals("Kubernetes upgrade", hits.get(0).getNote().getTitle());
+    }
+
+    @Test
+    void testNotesMatchingMoreTermsRankFirst() {
+        Note one = save(1L, "Trip", "flight booked");
+        Note both = save(1L, "Trip", "flight and hotel booked");
+
+        assertEquals(List.of(both.getId(), one.getId()), ids(searchService.search("hotel FLIGHT", 10)));
+    }
+
+    @Test
+    void testOnlyTheCurrentUsersNotesAreSearched() {
+        save(2L, "Secret plan", "bob's secret");
+        Note mine = save(1L, "My plan", "nothing secret here");
+
+        assertEquals(List.of(mine.getId()), ids(searchService.search("secret", null)));
+        signIn(BOB);
+        assertEquals(1, searchService.search("bob", null).size());
+    }
+
+    @Test
+    void testUpdatesAndDeletesAreReflected() {
+        Note note = save(1L, "Draft", "apples");
+        noteRepository.updateByIdAndUserId(note.getId(), 1L, "Draft", "oranges");
+
+        assertTrue(searchService.search("apples", null).isEmpty());
+        assertEquals(List.of(note.getId()), ids(searchService.search("oranges", null)));
+
+        // Deleting someone else's note changes nothing
+        assertEquals(0, noteRepository.deleteByIdAndUserId(note.getId(), 2L));
+        assertEquals(1, searchService.search("oranges", null).size());
+
+        noteRepository.deleteByIdAndUserId(note.getId(), 1L);
+        assertTrue(searchService.search("oranges", null).isEmpty());
+    }
+
+    @Test
+    void testRolledBackWritesAreNotIndexed() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager(jdbcTemplate));
+        tx.executeWithoutResult(status -> {
+            save(1L, "Rolled back", "phantom");
+            assertTrue(searchService.search("phantom", null).isEmpty(), "Indexed before commit");
+            status.setRollbackOnly();
+        });
+        assertTrue(searchService.search("phantom", null).isEmpty());
+
+        tx.executeWithoutResult(status -> save(1L, "Committed", "phantom"));
+        assertEquals(1, searchService.search("phantom", null).size());
+    }
+
+    @Test
+    void testRebuildIndexesExistingRows() {
+        jdbcTemplate.update("INSERT INTO notes (title, content, user_id) VALUES ('Imported', 'legacy row', 1)");
+        assertTrue(searchService.search("legacy", null).isEmpty());
+
+        searchService.rebuildIndex();
+
+        assertEquals(1, searchService.search("legacy", null).size());
+        assertEquals(1, index.documentCount());
+    }
+
+    @Test
+    void testCompactionKeepsSurvivorsSearchable() {
+        List<Note> notes = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            Note note = note(1L, "Note " + i, i % 2 == 0 ? "even common" : "odd common");
+            note.setId((long) i + 1);
+            notes.add(note);
+            index.noteSaved(note);
+        }
+        // Remove two thirds, which crosses the compaction threshold
+        for (Note note : notes) {
+            if (note.getId() % 3 != 0) {
+                index.noteDeleted(1L, note.getId());
+            }
+        }
+
+        assertEquals(1000, index.documentCount());
+        List<NoteSearchIndex.Hit> hits = index.search(1L, "common", 5000);
+        assertEquals(1000, hits.size());
+        assertTrue(hits.stream().allMatch(hit -> hit.noteId() % 3 == 0));
+        assertEquals(500, index.search(1L, "even", 5000).size());
+    }
+
+    @Test
+    void testBlankQueryIsRejected() {
+        assertThrows(BadRequestException.class, () -> searchService.search("  ", null));
+        // Only one-letter words and punctuation: nothing to look up
+        assertTrue(searchService.search("a ! ?", null).isEmpty());
+    }
+
+    private Note save(Long userId, String title, String content) {
+        return noteRepository.save(note(userId, title, content));
+    }
+
+    private static Note note(Long userId, String title, String content) {
+        Note note = new Note();
+        note.setTitle(title);
+        note.setContent(content);
+        note.setCreatedAt(LocalDateTime.now());
+        note.setUserId(userId);
+        return note;
+    }
+
+    private static List<Long> ids(List<NoteSearchHit> hits) {
+        return hits.stream().map(hit -> hit.getNote().getId()).toList();
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.lab10.service;
+
+import com.example.lab10.model.Note;
+import com.example.lab10.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import static com.example.lab10.service.NoteTestFixture.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class NoteServiceTest {
+
+    private static JdbcTemplate jdbcTemplate;
+
+    private UserRepository userRepository;
+    private NoteService noteService;
+    private long otherUsersNoteId;
+
+    @BeforeAll
+    static void setUpDatabase() {
+        jdbcTemplate = new JdbcTemplate(database(url("noteservicetest")));
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM notes");
+        jdbcTemplate.update("INSERT INTO notes (title, content, user_id) VALUES ('Bob''s', 'secret', 2)");
+        otherUsersNoteId = jdbcTemplate.queryForObject("SELECT id FROM notes WHERE user_id = 2", Long.class);
+
+        userRepository = mock(UserRepository.class);
+        noteService = noteService(noteRepository(jdbcTemplate), userRepository);
+        signIn(ALICE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testMutationsUsePrincipalIdWithoutUserLookup() {
+        Note created = noteService.createNote(dto("Mine", "content"));
+        Long id = jdbcTemplate.queryForObject("SELECT id FROM notes WHERE user_id = 1", Long.class);
+        assertEquals(id, created.getId());
+        assertEquals(created.getCreatedAt(), noteService.getNoteById(id).getCreatedAt());
+
+        Note updated = noteService.updateNote(id, dto("Renamed", "new content"));
+        assertEquals("Renamed", updated.getTitle());
+        assertEquals("new content", updated.getContent());
+        assertNotNull(updated.getCreatedAt());
+        assertEquals(1L, updated.getUserId());
+
+        noteService.deleteNote(id);
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM notes WHERE user_id = 1", Integer.class));
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void testOtherUsersNoteLooksMissingAndIsUntouched() {
+        RuntimeException update = assertThrows(RuntimeException.class,
+                () -> noteService.updateNote(otherUsersNoteId, dto("Hacked", "hacked")));
+        RuntimeException delete = assertThrows(RuntimeException.class, () -> noteService.deleteNote(otherUsersNoteId));
+        RuntimeException read = assertThrows(RuntimeException.class, () -> noteService.getNoteById(otherUsersNoteId));
+
+        assertEquals("Note not found", update.getMessage());
+        assertEquals("Note not found", delete.getMessage());
+        assertEquals("Note not found", read.getMessage());
+        assertEquals("Bob's", jdbcTemplate.queryForObject(
+                "SELECT title FROM notes WHERE id = ?", String.class, otherUsersNoteId));
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.lab10.service;
+
+import com.example.lab10.dto.NoteDTO;
+import com.example.lab10.repository.NoteChangeListener;
+import com.example.lab10.repository.NoteRepository;
+import com.example.lab10.repository.UserRepository;
+import com.example.lab10.security.AuthenticatedUser;
+import org.flywaydb.core.Flyway;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.support.JdbcTransactionManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+/**
+ * Shared set-up for the note service tests that run without a Spring context: a migrated in-memory
+ * H2 database holding two users, alice (id 1) and bob (id 2), the principal the JWT filter would set,
+ * and the note beans wired as the application wires them, on a transaction manager for that database.
+ */
+final class NoteTestFixture {
+
+    static final AuthenticatedUser ALICE = user(1L, "alice@test.com");
+    static final AuthenticatedUser BOB = user(2L, "bob@test.com");
+
+    private NoteTestFixture() {
+    }
+
+    static String url(String name) {
+        return "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1";
+    }
+
+    /**
+     * Migrates the database at {@code url} and adds alice and bob. Call once per class: the database
+     * outlives the test (DB_CLOSE_DELAY=-1), so each class uses its own name.
+     */
+    static DriverManagerDataSource database(String url) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(url, "sa", "");
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        for (AuthenticatedUser user : List.of(ALICE, BOB)) {
+            jdbcTemplate.update("INSERT INTO users (id, username, email, password) VALUES (?, ?, ?, 'x')",
+                    user.getId(), user.getUsername().substring(0, user.getUsername().indexOf('@')), user.getUsername());
+        }
+        return dataSource;
+    }
+
+    /**
+     * The manager the repository writes through. Transactions a test opens with it are joined by those writes.
+     */
+    static PlatformTransactionManager transactionManager(JdbcTemplate jdbcTemplate) {
+        return new JdbcTransactionManager(jdbcTemplate.getDataSource());
+    }
+
+    static NoteRepository noteRepository(JdbcTemplate jdbcTemplate, NoteChangeListener... listeners) {
+        return new NoteRepository(jdbcTemplate, List.of(listeners), transactionManager(jdbcTemplate));
+    }
+
+    /**
+     * NoteService without a cache, for tests that are not about caching.
+     */
+    static NoteService noteService(NoteRepository noteRepository, UserRepository userRepository) {
+        return new NoteService(noteRepository, userRepository, new NoteCache(false, 0, 1));
+    }
+
+    static void signIn(AuthenticatedUser user) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+    static NoteDTO dto(String title, String content) {
+        NoteDTO dto = new NoteDTO();
+        dto.setTitle(title);
+        dto.setContent(content);
+        return dto;
+    }
+
+    private static AuthenticatedUser user(long id, String email) {
+        return new AuthenticatedUser(id, email, "x", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.lab10.service;
+
+import com.example.lab10.repository.RefreshTokenRepository;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RefreshTokenPurgeServiceTest {
+
+    private static final Instant CUTOFF = Instant.parse("2024-01-02T00:00:00Z");
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:purgetest;DB_CLOSE_DELAY=-1", "sa", "");
+        Flyway.configure().dataSource(dataSource).cleanDisabled(false).load().clean();
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        jdbcTemplate.update("INSERT INTO users (id, username, email, password) VALUES (1, 'u', 'u@test.com', 'x')");
+        // 2,500 expired tokens and 100 still valid ones
+        jdbcTemplate.update("INSERT INTO refresh_tokens (token, user_id, expiry_date) "
+                + "SELECT 'expired-' || X, 1, TIMESTAMP '2024-01-01 00:00:00' FROM SYSTEM_RANGE(1, 2500)");
+        jdbcTemplate.update("INSERT INTO refresh_tokens (token, user_id, expiry_date) "
+                + "SELECT 'valid-' || X, 1, TIMESTAMP '2030-01-01 00:00:00' FROM SYSTEM_RANGE(1, 100)");
+    }
+
+    @Test
+    void testPurgeDeletesExpiredTokensInBatches() {
+        RefreshTokenPurgeService service = new RefreshTokenPurgeService(
+                new RefreshTokenRepository(jdbcTemplate), true, 1000, 100);
+
+        RefreshTokenPurgeService.PurgeResult result = service.purgeExpired(CUTOFF);
+
+        assertEquals(2500, result.rows());
+        assertEquals(3, result.batches());
+        assertEquals(2500, service.purgedCount());
+        assertEquals(100, count());
+    }
+
+    @Test
+    void testRunStopsAtBatchLimitAndResumesNextRun() {
+        RefreshTokenPurgeService service = new RefreshTokenPurgeService(
+                new RefreshTokenRepository(jdbcTemplate), true, 500, 2);
+
+        assertEquals(1000, service.purgeExpired(CUTOFF).rows());
+        assertEquals(1600, count());
+
+        service.purgeExpired(CUTOFF);
+        service.purgeExpired(CUTOFF);
+        assertEquals(100, count());
+        assertEquals(2500, service.purgedCount());
+    }
+
+    private int count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM refresh_tokens", Integer.class);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.lab10.service;
+
+import com.example.lab10.model.RefreshToken;
+import com.example.lab10.repository.RefreshTokenRepository;
+import com.example.lab10.repository.UserRepository;
+import com.example.lab10.security.PrincipalCache;
+import com.example.lab10.security.TokenRevocationRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class RefreshTokenServiceTest {
+
+    private static JdbcTemplate jdbcTemplate;
+    private static RefreshTokenService refreshTokenService;
+
+    @BeforeAll
+    static void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:refreshtokentest;DB_CLOSE_DELAY=-1", "sa", "");
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO users (id, username, email, password) VALUES (1, 'u', 'u@test.com', 'x')");
+
+        refreshTokenService = new RefreshTokenService(new RefreshTokenRepository(jdbcTemplate),
+                mock(UserRepository.class), mock(PrincipalCache.class), new TokenRevocationRegistry());
+    }
+
+    @Test
+    void testCreatedTokenCarriesGeneratedIdAndCanBeDeleted() {
+        RefreshToken created = refreshTokenService.createRefreshToken(1L);
+
+        assertNotNull(created.getId());
+        assertEquals(created.getId(), refreshTokenService.findByToken(created.getToken()).orElseThrow().getId());
+
+        // Rotation deletes the token it was handed, without re-reading it
+        refreshTokenService.delete(created);
+        assertTrue(refreshTokenService.findByToken(created.getToken()).isEmpty());
+    }
+}
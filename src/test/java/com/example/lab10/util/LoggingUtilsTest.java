@@ -68,4 +68,26 @@ class LoggingUtilsTest {
         String masked = LoggingUtils.maskUsername(null);
         assertEquals("***", masked);
     }
+
+    @Test
+    void testMaskEmail_MissingDomain() {
+        assertEquals("a***@***", LoggingUtils.maskEmail("a@"));
+        assertEquals("a***@d***", LoggingUtils.maskEmail("a.b@domain"));
+        assertEquals("a***@e***.com", LoggingUtils.maskEmail("alice@example.com"));
+    }
+
+    @Test
+    void testAppendMasked_WritesIntoExistingBuilder() {
+        StringBuilder out = new StringBuilder("user=");
+        LoggingUtils.appendMaskedEmail(out, "john.doe@mail.example.org").append(" name=");
+        LoggingUtils.appendMaskedUsername(out, "johndoe");
+        assertEquals("user=j***@m***.org name=jo***", out.toString());
+    }
+
+    @Test
+    void testMaskedArgument_MasksOnlyWhenFormatted() {
+        Object lazy = LoggingUtils.maskedEmail("john.doe@example.com");
+        assertEquals("j***@e***.com", lazy.toString());
+        assertEquals("jo***", LoggingUtils.maskedUsername("johndoe").toString());
+    }
 }
@@ -0,0 +1,77 @@
+package com.example.lab10.validation;
+
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordValidatorTest {
+
+    // The policy as it was enforced before the scanner, minus the missing upper bound
+    private static final String LEGACY_REGEX = "^(?=.*[0-9])(?=.*[a-z])(?=.*[A-Z])(?=.*[@#$%^&+=!]).{8,}$";
+
+    private final PasswordValidator validator = new PasswordValidator();
+
+    @Test
+    void testDefaultPolicy_MatchesLegacyRegex() {
+        List<String> samples = List.of("Password1!", "password1!", "PASSWORD1!", "Password!!", "Password11",
+                "Pa1!", "Pa1!Pa1!", "Pass word1!", "Pässwörd1!", "Password1!\n", "Password1?", "");
+        for (String sample : samples) {
+            assertEquals(sample.matches(LEGACY_REGEX), validator.isValid(sample, null), sample);
+        }
+
+        // Random strings over an alphabet that hits every branch of the scanner
+        String alphabet = "aZ9@!?. \n é";
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            char[] chars = new char[random.nextInt(PasswordValidator.DEFAULT_MAX_LENGTH + 1)];
+            for (int j = 0; j < chars.length; j++) {
+                chars[j] = alphabet.charAt(random.nextInt(alphabet.length()));
+            }
+            String sample = new String(chars);
+            boolean withinBcryptLimit = sample.getBytes(StandardCharsets.UTF_8).length <= PasswordValidator.DEFAULT_MAX_LENGTH;
+            assertEquals(sample.matches(LEGACY_REGEX) && withinBcryptLimit, validator.isValid(sample, null), sample);
+        }
+    }
+
+    @Test
+    void testOverlongPassword_RejectedWithoutScanning() {
+        assertTrue(validator.isValid("Aa1!".repeat(18), null));
+        assertFalse(validator.isValid("Aa1!".repeat(18) + "x", null));
+        assertFalse(validator.isValid("Aa1!" + "x".repeat(1_000_000), null));
+        assertFalse(validator.isValid(null, null));
+    }
+
+    @Test
+    void testUpperBound_CountsUtf8Bytes() {
+        assertTrue(validator.isValid("Aa1!" + "é".repeat(34), null)); // 38 chars, 72 bytes
+        assertFalse(validator.isValid("Aa1!" + "é".repeat(35), null)); // 39 chars, 74 bytes
+        assertTrue(validator.isValid("Aa1!" + "\uD83D\uDE00".repeat(17), null)); // 17 four-byte emoji, 72 bytes
+        assertFalse(validator.isValid("Aa1!" + "\uD83D\uDE00".repeat(18), null));
+    }
+
+    @Test
+    void testAnnotationAttributes_ConfigurePolicy() {
+        Validator beanValidator = Validation.buildDefaultValidatorFactory().getValidator();
+
+        assertTrue(beanValidator.validate(new Passphrase("correct horse battery")).isEmpty());
+        assertFalse(beanValidator.validate(new Passphrase("correct horse")).isEmpty()); // too short
+        assertFalse(beanValidator.validate(new Passphrase("correct horse battery staple!")).isEmpty()); // too long
+
+        assertTrue(beanValidator.validate(new CustomSpecials("Password1?")).isEmpty());
+        assertFalse(beanValidator.validate(new CustomSpecials("Password1!")).isEmpty());
+    }
+
+    private record Passphrase(
+            @PasswordConstraint(min = 16, max = 24, requireDigit = false, requireUppercase = false,
+                    requireSpecial = false) String password) {
+    }
+
+    private record CustomSpecials(@PasswordConstraint(specials = "?-_") String password) {
+    }
+}